@@ -8,7 +8,10 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Configuration
 public class DataSeeder {
@@ -583,39 +586,30 @@ public class DataSeeder {
                     ing("Tomate", "1", "Stk")
             ));
 
-            ensure(recipeRepository, r1);
-            ensure(recipeRepository, r2);
-            ensure(recipeRepository, r3);
-            ensure(recipeRepository, r4);
-            ensure(recipeRepository, r5);
-            ensure(recipeRepository, r6);
-            ensure(recipeRepository, r7);
-            ensure(recipeRepository, r8);
-            ensure(recipeRepository, r9);
-            ensure(recipeRepository, r10);
-            ensure(recipeRepository, r11);
-            ensure(recipeRepository, r12);
-            ensure(recipeRepository, r13);
-            ensure(recipeRepository, r14);
-            ensure(recipeRepository, r15);
+            ensureAll(recipeRepository, List.of(r1, r2, r3, r4, r5, r6, r7, r8, r9, r10, r11, r12, r13, r14, r15));
         };
     }
 
-    private void ensure(RecipeRepository repo, Recipe recipe) {
-        String title = (recipe.getTitle() == null) ? "" : recipe.getTitle().trim();
-        if (title.isBlank()) return;
-
-        if (repo.existsByTitleIgnoreCase(title)) {
-            return;
+    // nur fehlende Rezepte (nach Titel) anlegen: ein SELECT für alle Titel, dann ein saveAll => gebündelte INSERTs
+    private void ensureAll(RecipeRepository repo, List<Recipe> recipes) {
+        Map<String, Recipe> byTitle = new LinkedHashMap<>();
+        for (Recipe recipe : recipes) {
+            String title = (recipe.getTitle() == null) ? "" : recipe.getTitle().trim();
+            if (!title.isBlank()) byTitle.putIfAbsent(title.toLowerCase(Locale.ROOT), recipe);
         }
+        if (byTitle.isEmpty()) return;
+
+        repo.findExistingTitlesLower(byTitle.keySet()).forEach(byTitle::remove);
 
-        if (recipe.getIngredients() != null) {
-            for (Ingredient ing : recipe.getIngredients()) {
-                ing.setRecipe(recipe);
+        for (Recipe recipe : byTitle.values()) {
+            if (recipe.getIngredients() != null) {
+                for (Ingredient ing : recipe.getIngredients()) {
+                    ing.setRecipe(recipe);
+                }
             }
         }
 
-        repo.save(recipe);
+        repo.saveAll(byTitle.values());
     }
 
     private Ingredient ing(String name, String amount, String unit) {
@@ -0,0 +1,16 @@
+package com.example.rezeptapp.config;
+
+import com.example.rezeptapp.repository.RecipeQueryRepository;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FullTextSearchSetup {
+
+    // Postgres: search_vector-Spalte + GIN-Index + Owner-Index anlegen (idempotent), sonst bleibt die LIKE-Suche aktiv
+    @Bean
+    ApplicationRunner setupFullTextSearch(RecipeQueryRepository queries) {
+        return args -> queries.initialize();
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.rezeptapp.config;
 
+import com.example.rezeptapp.service.IndexNotReadyException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
@@ -58,6 +62,27 @@ public class GlobalExceptionHandler {
         return build(status, msg);
     }
 
+    // Upload über spring.servlet.multipart.max-file-size / max-request-size
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ApiError> handleMaxUploadSize(MaxUploadSizeExceededException ex) {
+        return build(HttpStatus.PAYLOAD_TOO_LARGE, "Upload ist zu groß.");
+    }
+
+    // If-Match passt nicht mehr bzw. @Version-Konflikt beim UPDATE (gleichzeitige Änderung) => Client lädt neu
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        return build(HttpStatus.PRECONDITION_FAILED, "Rezept wurde inzwischen geändert, bitte neu laden.");
+    }
+
+    // Index baut nach dem Start noch auf => kurz warten statt 500
+    @ExceptionHandler(IndexNotReadyException.class)
+    public ResponseEntity<ApiError> handleIndexNotReady(IndexNotReadyException ex) {
+        ResponseEntity<ApiError> response = build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(response.getBody());
+    }
+
     @ExceptionHandler(NoResourceFoundException.class)
     public ResponseEntity<ApiError> handleNoResource(NoResourceFoundException ex) {
         return build(HttpStatus.NOT_FOUND, "not found");
@@ -0,0 +1,63 @@
+package com.example.rezeptapp.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Umstellung bestehender Postgres-Tabellen von IDENTITY auf die Sequenzen der Entities (Recipe, Ingredient, UserAccount).
+ * ddl-auto=update legt die Sequenzen an (Start 1), ändert aber weder die Spalten noch den Startwert:
+ * hier wird die Identity entfernt und die Sequenz hinter die größte vorhandene id gesetzt. Idempotent.
+ *
+ * Läuft, sobald alle Singletons stehen (Hibernate hat das Schema aktualisiert), aber bevor der Webserver startet
+ * und die Runner (DataSeeder) laufen, also bevor die erste id vergeben wird.
+ */
+@Component
+public class IdSequenceMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceMigration.class);
+
+    // passend zu allocationSize der @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Tabelle -> Sequenz
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "recipes", "recipes_seq",
+            "ingredients", "ingredients_seq",
+            "app_users", "app_users_seq"
+    );
+
+    private final JdbcTemplate jdbc;
+
+    public IdSequenceMigration(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String product = jdbc.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if (product == null || !product.toLowerCase(Locale.ROOT).contains("postgres")) return;
+
+        SEQUENCES.forEach(this::migrate);
+    }
+
+    private void migrate(String table, String sequence) {
+        jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbc.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " INCREMENT BY " + ALLOCATION_SIZE);
+
+        // nur vorwärts: hinter max(id) + ein ganzer Block, falls eine laufende Instanz noch ids aus ihrem Block vergibt
+        String maxId = "(SELECT COALESCE(MAX(id), 0) FROM " + table + ")";
+        Long moved = jdbc.query(
+                "SELECT setval('" + sequence + "', " + maxId + " + " + ALLOCATION_SIZE + ", false)"
+                        + " WHERE (SELECT last_value FROM " + sequence + ") <= " + maxId,
+                rs -> rs.next() ? rs.getLong(1) : null);
+
+        if (moved != null) log.info("Sequenz {} auf {} gesetzt (Tabelle {}).", sequence, moved, table);
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.rezeptapp.controller;
 
-import com.example.rezeptapp.model.UserAccount;
 import com.example.rezeptapp.service.AuthService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -43,8 +42,8 @@ public class AuthController {
     @GetMapping("/me")
     public ResponseEntity<?> me(@RequestHeader(value = "Authorization", required = false) String authHeader) {
         String token = tokenFromHeader(authHeader);
-        UserAccount u = authService.requireUser(token);
-        return ResponseEntity.ok(new MeResponse(u.getId(), u.getUsername()));
+        AuthService.Principal u = authService.requirePrincipal(token);
+        return ResponseEntity.ok(new MeResponse(u.id(), u.username()));
     }
 
     private String tokenFromHeader(String authHeader) {
@@ -1,21 +1,51 @@
 package com.example.rezeptapp.controller;
 
+import com.example.rezeptapp.dto.IngredientMatch;
+import com.example.rezeptapp.dto.RecipeDetail;
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.dto.Suggestion;
 import com.example.rezeptapp.model.Recipe;
 import com.example.rezeptapp.model.UserAccount;
+import com.example.rezeptapp.repository.RecipeFilter;
 import com.example.rezeptapp.service.AuthService;
+import com.example.rezeptapp.service.ImageService;
 import com.example.rezeptapp.service.PdfService;
+import com.example.rezeptapp.service.RecipeImportService;
 import com.example.rezeptapp.service.RecipeService;
+import com.example.rezeptapp.service.ThumbnailService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
 
 import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.FOUND;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
 @RestController
@@ -23,71 +53,296 @@ import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 public class RecipeController {
 
     private static final String MINE_VALUE = "__mine__";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    // Clients dürfen speichern, müssen aber per If-None-Match/If-Modified-Since nachfragen (=> 304)
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
 
     private final RecipeService recipeService;
     private final PdfService pdfService;
     private final AuthService authService;
+    private final ImageService imageService;
+    private final ThumbnailService thumbnailService;
+    private final RecipeImportService importService;
+    // eine Zeile = ein Objekt; Jackson puffert, statt nach jedem Objekt zu flushen
+    private final ObjectWriter ndjsonWriter;
 
-    public RecipeController(RecipeService recipeService, PdfService pdfService, AuthService authService) {
+    public RecipeController(
+            RecipeService recipeService,
+            PdfService pdfService,
+            AuthService authService,
+            ImageService imageService,
+            ThumbnailService thumbnailService,
+            RecipeImportService importService,
+            ObjectMapper objectMapper
+    ) {
         this.recipeService = recipeService;
         this.pdfService = pdfService;
         this.authService = authService;
+        this.imageService = imageService;
+        this.thumbnailService = thumbnailService;
+        this.importService = importService;
+        this.ndjsonWriter = objectMapper.writerFor(RecipeSummary.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    // ohne limit/cursor: komplette Liste (wie bisher)
+    // mit limit/cursor: { "items": [...], "next": "<cursor>" | null }
+    // facets=true: { "items": [...], "next": ..., "facets": { "categories", "prepMinutes", "kcal" } }
+    // mode=fuzzy: tippfehler-tolerante Titelsuche, Liste nach Ähnlichkeit sortiert (limit = max. Treffer)
+    // Filter (RecipeFilter): minKcal, maxKcal, minProteinG, maxProteinG, maxFatG, maxCarbsG, maxPrepMinutes, sort
     @GetMapping
-    public List<Recipe> getAllRecipes(
+    public ResponseEntity<?> getAllRecipes(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String category,
-            @RequestHeader(value = "Authorization", required = false) String authHeader
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String mode,
+            @RequestParam(defaultValue = "false") boolean facets,
+            RecipeFilter filter,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            WebRequest request
     ) {
-        if (category != null && category.trim().equalsIgnoreCase(MINE_VALUE)) {
-            UserAccount user = requireUserFromHeader(authHeader);
-            return recipeService.findMine(user.getUsername(), search);
+        boolean paged = limit != null || cursor != null;
+        Integer pageSize = (limit == null && paged) ? DEFAULT_PAGE_SIZE : limit;
+        boolean fuzzy = isFuzzyMode(mode);
+
+        if (fuzzy && facets) throw new IllegalArgumentException("facets ist mit mode=fuzzy nicht möglich");
+
+        boolean mine = category != null && category.trim().equalsIgnoreCase(MINE_VALUE);
+        String usernameOrNull = mine ? requireUserFromHeader(authHeader).username() : tryUsernameFromHeader(authHeader);
+
+        if (listNotModified(request, usernameOrNull)) return null;
+
+        if (fuzzy) {
+            if (mine) return revalidate(recipeService.findMineFuzzy(usernameOrNull, search, limit));
+            return revalidate(recipeService.findAllFuzzy(usernameOrNull, search, category, limit));
         }
 
+        RecipeService.RecipePage page = mine
+                ? recipeService.findMineFiltered(usernameOrNull, filter, cursor, pageSize)
+                : recipeService.findAllFiltered(usernameOrNull, filter, cursor, pageSize);
+
+        if (facets) return revalidate(recipeService.withFacets(usernameOrNull, filter, page));
+        if (!paged) return revalidate(page.items());
+        return revalidate(page);
+    }
+
+    // Accept: application/x-ndjson => alle Treffer als NDJSON (eine RecipeSummary pro Zeile), ohne Liste im Speicher.
+    // Gleiche Filter wie oben; limit/cursor/facets/mode werden hier nicht unterstützt.
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRecipes(
+            @RequestParam(required = false) String category,
+            RecipeFilter filter,
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
+        boolean mine = category != null && category.trim().equalsIgnoreCase(MINE_VALUE);
+        String usernameOrNull = mine ? requireUserFromHeader(authHeader).username() : tryUsernameFromHeader(authHeader);
+
+        // Filter werden hier schon geprüft (=> 400), die Abfrage läuft erst beim Schreiben
+        RecipeService.RecipeStream recipes = recipeService.streamFiltered(usernameOrNull, filter, mine);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = ndjsonWriter.createGenerator(out)) {
+                gen.setRootValueSeparator(null);
+                recipes.forEach(summary -> {
+                    try {
+                        ndjsonWriter.writeValue(gen, summary);
+                        gen.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .cacheControl(REVALIDATE)
+                .body(body);
+    }
+
+    // GET /rezeptapp/suggest?q=carb&limit=5
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
         String usernameOrNull = tryUsernameFromHeader(authHeader);
-        return recipeService.findAll(usernameOrNull, search, category);
+        return recipeService.suggest(usernameOrNull, q, limit);
+    }
+
+    // GET /rezeptapp/cook?have=Eier,Parmesan,Spaghetti&maxMissing=2
+    @GetMapping("/cook")
+    public List<IngredientMatch> cookWithWhatIHave(
+            @RequestParam(required = false) List<String> have,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer maxMissing,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
+        String usernameOrNull = tryUsernameFromHeader(authHeader);
+        return recipeService.findByIngredients(usernameOrNull, have, category, maxMissing, limit);
     }
 
     @GetMapping("/categories")
-    public List<String> getCategories(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+    public ResponseEntity<List<String>> getCategories(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            WebRequest request
+    ) {
         String usernameOrNull = tryUsernameFromHeader(authHeader);
-        return recipeService.getAllCategories(usernameOrNull);
+        if (listNotModified(request, usernameOrNull)) return null;
+        return revalidate(recipeService.getAllCategories(usernameOrNull));
+    }
+
+    // mehrere Rezepte auf einmal: ?ids=3,1,2 => { "items": [...], "forbidden": [...] }, Reihenfolge wie angefragt
+    @GetMapping("/batch")
+    public RecipeService.RecipeBatch getRecipesByIds(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
+        return recipeService.findDetailsForUser(ids, tryUsernameFromHeader(authHeader));
     }
 
     @GetMapping("/{id}")
-    public Recipe getRecipeById(
+    public ResponseEntity<RecipeDetail> getRecipeById(
             @PathVariable Long id,
-            @RequestHeader(value = "Authorization", required = false) String authHeader
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            WebRequest request
+    ) {
+        String usernameOrNull = tryUsernameFromHeader(authHeader);
+        try {
+            // erst nur den Änderungsstand prüfen => 304 ohne das Rezept zu laden
+            if (notModified(request, recipeService.findVersionForUser(id, usernameOrNull), "")) return null;
+            return revalidate(recipeService.findDetailForUser(id, usernameOrNull));
+        } catch (IllegalArgumentException ex) {
+            String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
+            if (msg.contains("forbidden")) throw new ResponseStatusException(FORBIDDEN, "forbidden");
+            throw ex;
+        }
+    }
+
+    // ETag = SHA-256 der Bytes => 304 ohne Bild zu laden; Resource-Body => Range-Anfragen liefern 206
+    // size=thumb|card: verkleinerte Fassung, solange sie noch nicht erzeugt ist das Original (eigener ETag)
+    @GetMapping("/{id}/image")
+    public ResponseEntity<Resource> getRecipeImage(
+            @PathVariable Long id,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(required = false) String size,
+            WebRequest request
     ) {
+        ThumbnailService.Rendition rendition = size == null || size.isBlank() ? null : ThumbnailService.Rendition.parse(size);
+
         String usernameOrNull = tryUsernameFromHeader(authHeader);
+        RecipeService.ImageRef image;
         try {
-            return recipeService.findByIdForUser(id, usernameOrNull);
+            image = recipeService.findImageForUser(id, usernameOrNull);
         } catch (IllegalArgumentException ex) {
             String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
             if (msg.contains("forbidden")) throw new ResponseStatusException(FORBIDDEN, "forbidden");
             throw ex;
         }
+
+        // externe Bild-URL => Browser lädt direkt von dort
+        if (image.externalUrl() != null) {
+            return ResponseEntity.status(FOUND).location(URI.create(image.externalUrl())).build();
+        }
+
+        boolean scaled = rendition != null && thumbnailService.exists(image.sha256(), rendition);
+        if (rendition != null && !scaled) thumbnailService.enqueue(image.sha256());
+
+        String etag = scaled ? rendition.key(image.sha256()) : image.sha256();
+        if (request.checkNotModified("\"" + etag + "\"")) return null;
+
+        ImageService.StoredImage stored = (scaled
+                ? thumbnailService.load(image.sha256(), rendition)
+                : imageService.load(image.sha256()))
+                .orElseThrow(() -> new IllegalArgumentException("Bild nicht gefunden: " + id));
+
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .contentType(MediaType.parseMediaType(stored.contentType()))
+                .body(new ByteArrayResource(stored.bytes()));
+    }
+
+    // multipart/form-data, Teil "file": Bild wird gestreamt gespeichert statt als Base64 im JSON
+    @PutMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public RecipeDetail uploadRecipeImage(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @PathVariable Long id,
+            @RequestPart("file") MultipartFile file
+    ) {
+        AuthService.Principal user = requireUserFromHeader(authHeader);
+        try (InputStream in = file.getInputStream()) {
+            return recipeService.uploadImageForUser(id, file.getContentType(), in, file.getSize(), user.username());
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Bild-Upload abgebrochen.");
+        } catch (IllegalArgumentException ex) {
+            String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
+            if (msg.contains("forbidden")) throw new ResponseStatusException(FORBIDDEN, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    // Massenimport eigener Rezepte: application/x-ndjson (ein Rezept-JSON pro Zeile) oder text/csv (Format: RecipeImportService)
+    // Antwort: { "imported", "failed", "errors": [{ "line", "message" }] }
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public RecipeImportService.ImportResult importRecipes(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) {
+        AuthService.Principal user = requireUserFromHeader(authHeader);
+
+        MediaType type = MediaType.parseMediaType(contentType);
+        RecipeImportService.Format format = type.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? RecipeImportService.Format.NDJSON
+                : RecipeImportService.Format.CSV;
+
+        Charset charset = type.getCharset() == null ? StandardCharsets.UTF_8 : type.getCharset();
+        return importService.importFor(user.username(), format, new InputStreamReader(body, charset));
     }
 
     @PostMapping
-    public Recipe createRecipe(
+    public RecipeDetail createRecipe(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             @Valid @RequestBody Recipe recipe
     ) {
-        UserAccount user = requireUserFromHeader(authHeader);
-        return recipeService.createForUser(recipe, user.getUsername());
+        AuthService.Principal user = requireUserFromHeader(authHeader);
+        return recipeService.createDetailForUser(recipe, user.username());
     }
 
+    // If-Match (ETag aus GET) optional; passt er nicht mehr => 412
     @PutMapping("/{id}")
-    public Recipe updateRecipe(
+    public ResponseEntity<RecipeDetail> updateRecipe(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @PathVariable Long id,
             @RequestBody Recipe recipe
     ) {
-        UserAccount user = requireUserFromHeader(authHeader);
+        AuthService.Principal user = requireUserFromHeader(authHeader);
+        try {
+            return withEtag(recipeService.updateDetailForUser(id, recipe, expectedVersion(ifMatch, id), user.username()));
+        } catch (IllegalArgumentException ex) {
+            String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
+            if (msg.contains("forbidden")) throw new ResponseStatusException(FORBIDDEN, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    // JSON Merge Patch (RFC 7396): nur geänderte Felder schicken, null entfernt ein Feld
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<RecipeDetail> patchRecipe(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @PathVariable Long id,
+            @RequestBody JsonNode patch
+    ) {
+        AuthService.Principal user = requireUserFromHeader(authHeader);
         try {
-            return recipeService.updateForUser(id, recipe, user.getUsername());
+            return withEtag(recipeService.patchForUser(id, patch, expectedVersion(ifMatch, id), user.username()));
         } catch (IllegalArgumentException ex) {
             String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
             if (msg.contains("forbidden")) throw new ResponseStatusException(FORBIDDEN, ex.getMessage());
@@ -100,9 +355,25 @@ public class RecipeController {
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             @PathVariable Long id
     ) {
-        UserAccount user = requireUserFromHeader(authHeader);
+        AuthService.Principal user = requireUserFromHeader(authHeader);
+        try {
+            recipeService.deleteForUser(id, user.username());
+        } catch (IllegalArgumentException ex) {
+            String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
+            if (msg.contains("forbidden")) throw new ResponseStatusException(FORBIDDEN, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    // Body: [id, id, ...]; alles oder nichts (ein fremdes Rezept => 403, nichts gelöscht)
+    @PostMapping("/bulk-delete")
+    public RecipeService.DeleteResult deleteRecipes(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody List<Long> ids
+    ) {
+        AuthService.Principal user = requireUserFromHeader(authHeader);
         try {
-            recipeService.deleteForUser(id, user.getUsername());
+            return recipeService.deleteAllForUser(ids, user.username());
         } catch (IllegalArgumentException ex) {
             String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
             if (msg.contains("forbidden")) throw new ResponseStatusException(FORBIDDEN, ex.getMessage());
@@ -113,24 +384,28 @@ public class RecipeController {
     @GetMapping("/{id}/pdf")
     public ResponseEntity<byte[]> downloadPdf(
             @PathVariable Long id,
-            @RequestHeader(value = "Authorization", required = false) String authHeader
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            WebRequest request
     ) {
         String usernameOrNull = tryUsernameFromHeader(authHeader);
-        Recipe recipe;
+        RecipeDetail recipe;
         try {
-            recipe = recipeService.findByIdForUser(id, usernameOrNull);
+            // 304 vor dem Rendern
+            if (notModified(request, recipeService.findVersionForUser(id, usernameOrNull), "-pdf")) return null;
+            recipe = recipeService.findDetailForUser(id, usernameOrNull);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(FORBIDDEN, "forbidden");
         }
 
         byte[] pdf = pdfService.createRecipePdf(recipe);
 
-        String filename = (recipe.getTitle() == null ? "rezept" : recipe.getTitle())
+        String filename = (recipe.title() == null ? "rezept" : recipe.title())
                 .replaceAll("[^a-zA-Z0-9\\-_ ]", "")
                 .trim()
                 .replace(" ", "_");
 
         return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
                 .contentType(MediaType.APPLICATION_PDF)
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename*=UTF-8''" + encodeFilename(filename + ".pdf"))
@@ -140,15 +415,15 @@ public class RecipeController {
     // ===== Favoriten =====
 
     @GetMapping("/favorites")
-    public List<Recipe> getMyFavorites(@RequestHeader(value = "Authorization", required = false) String authHeader) {
-        UserAccount user = requireUserFromHeader(authHeader);
-        return recipeService.getFavorites(user);
+    public List<RecipeSummary> getMyFavorites(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        AuthService.Principal user = requireUserFromHeader(authHeader);
+        return recipeService.getFavorites(user.favoriteIds());
     }
 
     @GetMapping("/favorites/ids")
     public List<Long> getMyFavoriteIds(@RequestHeader(value = "Authorization", required = false) String authHeader) {
-        UserAccount user = requireUserFromHeader(authHeader);
-        return recipeService.getFavoriteIds(user);
+        AuthService.Principal user = requireUserFromHeader(authHeader);
+        return user.favoriteIds().stream().sorted().toList();
     }
 
     @PostMapping("/{id}/favorite")
@@ -156,7 +431,7 @@ public class RecipeController {
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             @PathVariable Long id
     ) {
-        UserAccount user = requireUserFromHeader(authHeader);
+        UserAccount user = requireAccountFromHeader(authHeader);
         recipeService.addFavorite(user, id);
     }
 
@@ -165,13 +440,85 @@ public class RecipeController {
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             @PathVariable Long id
     ) {
-        UserAccount user = requireUserFromHeader(authHeader);
+        UserAccount user = requireAccountFromHeader(authHeader);
         recipeService.removeFavorite(user, id);
     }
 
+    private boolean isFuzzyMode(String mode) {
+        if (mode == null || mode.isBlank()) return false;
+        if (mode.trim().equalsIgnoreCase("fuzzy")) return true;
+        throw new IllegalArgumentException("mode ist ungültig (erlaubt: fuzzy)");
+    }
+
+    // ===== Conditional Requests (ETag / Last-Modified) =====
+
+    // starker ETag aus id + @Version (gleicher Wert taugt für If-Match bei PUT/PATCH), Last-Modified aus updatedAt;
+    // true => Antwort ist schon 304 (ETag/Last-Modified gesetzt), kein Body
+    private boolean notModified(WebRequest request, RecipeService.RecipeVersion version, String variant) {
+        String etag = recipeEtag(version.id(), version.version()) + variant;
+        Instant updatedAt = version.updatedAt();
+        if (updatedAt == null) return request.checkNotModified("\"" + etag + "\"");
+        return request.checkNotModified("\"" + etag + "\"", updatedAt.toEpochMilli());
+    }
+
+    private static String recipeEtag(long id, long version) {
+        return "r" + id + "-v" + version;
+    }
+
+    private static ResponseEntity<RecipeDetail> withEtag(RecipeDetail detail) {
+        long version = detail.version() == null ? 0L : detail.version();
+        return ResponseEntity.ok().eTag(recipeEtag(detail.id(), version)).body(detail);
+    }
+
+    // If-Match => erwartete Version; fehlt oder "*" => keine Vorbedingung.
+    // Fremder/schwacher ETag passt nie (If-Match vergleicht stark) => -1 => 412
+    private static Long expectedVersion(String ifMatch, long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+
+        String prefix = "\"r" + id + "-v";
+        for (String tag : ifMatch.split(",")) {
+            String t = tag.trim();
+            if (!t.startsWith(prefix) || !t.endsWith("\"") || t.length() <= prefix.length() + 1) continue;
+            try {
+                return Long.parseLong(t.substring(prefix.length(), t.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // anderes Format (z.B. PDF-Variante) => nächster Tag
+            }
+        }
+        return -1L;
+    }
+
+    // Listen: Stand der sichtbaren Rezepte + User + Query-Parameter (sortiert)
+    private boolean listNotModified(WebRequest request, String usernameOrNull) {
+        StringBuilder key = new StringBuilder(recipeService.listVersion(usernameOrNull))
+                .append('|')
+                .append(usernameOrNull == null ? "" : usernameOrNull.trim().toLowerCase(Locale.ROOT));
+
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                key.append('|').append(name).append('=').append(String.join(",", values)));
+
+        String etag = "\"l" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        return request.checkNotModified(etag);
+    }
+
+    private static <T> ResponseEntity<T> revalidate(T body) {
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(body);
+    }
+
     // ===== Auth helpers =====
 
-    private UserAccount requireUserFromHeader(String authHeader) {
+    // pro Anfrage nur ein Cache-Lookup (AuthService.requirePrincipal)
+    private AuthService.Principal requireUserFromHeader(String authHeader) {
+        try {
+            String token = tokenFromHeader(authHeader);
+            return authService.requirePrincipal(token);
+        } catch (Exception e) {
+            throw new ResponseStatusException(UNAUTHORIZED, "unauthorized");
+        }
+    }
+
+    // Entity nur für Schreibzugriffe auf den User (Favoriten)
+    private UserAccount requireAccountFromHeader(String authHeader) {
         try {
             String token = tokenFromHeader(authHeader);
             return authService.requireUser(token);
@@ -184,7 +531,7 @@ public class RecipeController {
         try {
             if (authHeader == null) return null;
             String token = tokenFromHeader(authHeader);
-            return authService.requireUser(token).getUsername();
+            return authService.requirePrincipal(token).username();
         } catch (Exception e) {
             return null;
         }
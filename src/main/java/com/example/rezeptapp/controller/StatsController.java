@@ -1,18 +1,23 @@
 package com.example.rezeptapp.controller;
 
+import com.example.rezeptapp.service.CacheStatsService;
 import com.example.rezeptapp.service.StatsService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/rezeptapp/stats")
 public class StatsController {
 
     private final StatsService statsService;
+    private final CacheStatsService cacheStatsService;
 
-    public StatsController(StatsService statsService) {
+    public StatsController(StatsService statsService, CacheStatsService cacheStatsService) {
         this.statsService = statsService;
+        this.cacheStatsService = cacheStatsService;
     }
 
     // POST /rezeptapp/stats
@@ -21,4 +26,11 @@ public class StatsController {
     public ResponseEntity<StatsService.StatsResponse> stats(@RequestBody StatsService.StatsRequest req) {
         return ResponseEntity.ok(statsService.buildStats(req));
     }
-}
\ No newline at end of file
+
+    // GET /rezeptapp/stats/cache
+    // Trefferquote je Second-Level-Cache-Region (nur Zähler, keine Inhalte)
+    @GetMapping("/cache")
+    public List<CacheStatsService.RegionStats> cacheStats() {
+        return cacheStatsService.regions();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.rezeptapp.dto;
+
+import com.example.rezeptapp.model.Ingredient;
+
+// Zutat in der Detail-Antwort (gleiche JSON-Felder wie die Entity)
+public record IngredientDto(Long id, String name, String amount, String unit) {
+
+    public static IngredientDto of(Ingredient ingredient) {
+        return new IngredientDto(ingredient.getId(), ingredient.getName(), ingredient.getAmount(), ingredient.getUnit());
+    }
+}
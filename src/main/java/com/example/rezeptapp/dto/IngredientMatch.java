@@ -0,0 +1,6 @@
+package com.example.rezeptapp.dto;
+
+import java.util.List;
+
+// Treffer der "Was kann ich kochen?"-Suche: available von total Zutaten vorhanden, missing = was noch fehlt
+public record IngredientMatch(RecipeSummary recipe, int available, int total, List<String> missing) {}
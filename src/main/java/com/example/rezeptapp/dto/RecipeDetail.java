@@ -0,0 +1,67 @@
+package com.example.rezeptapp.dto;
+
+import com.example.rezeptapp.model.Nutrition;
+import com.example.rezeptapp.model.Recipe;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Vollständige Darstellung eines Rezepts (Detailseite, Antwort auf POST/PUT, PDF).
+ * Wird innerhalb der Service-Transaktion gebaut => nach dem Commit wird nichts mehr lazy nachgeladen
+ * und die DB-Verbindung ist schon zurück im Pool, während Jackson/OpenPDF noch arbeiten.
+ * JSON-Felder entsprechen der bisherigen Entity-Ausgabe.
+ */
+public record RecipeDetail(
+        Long id,
+        String title,
+        String description,
+        String instructions,
+        String category,
+        String imageUrl,
+        String imageBase64,
+        Integer prepMinutes,
+        Integer servings,
+        Nutrition nutrition,
+        List<IngredientDto> ingredients,
+        String createdByUsername,
+        Instant createdAt,
+        Instant updatedAt,
+        Long version
+) {
+
+    public static RecipeDetail of(Recipe recipe) {
+        Nutrition n = recipe.getNutrition();
+        Nutrition copy = null;
+        if (n != null) {
+            copy = new Nutrition();
+            copy.setCaloriesKcal(n.getCaloriesKcal());
+            copy.setProteinG(n.getProteinG());
+            copy.setFatG(n.getFatG());
+            copy.setCarbsG(n.getCarbsG());
+        }
+
+        List<IngredientDto> ingredients = recipe.getIngredients() == null
+                ? List.of()
+                : recipe.getIngredients().stream().map(IngredientDto::of).toList();
+
+        return new RecipeDetail(
+                recipe.getId(),
+                recipe.getTitle(),
+                recipe.getDescription(),
+                recipe.getInstructions(),
+                recipe.getCategory(),
+                // Bilder aus dem Store: Client lädt sie über GET /rezeptapp/{id}/image (ETag, Range)
+                recipe.getImageSha256() != null ? RecipeSummary.imagePath(recipe.getId()) : recipe.getImageUrl(),
+                recipe.getImageBase64(),
+                recipe.getPrepMinutes(),
+                recipe.getServings(),
+                copy,
+                ingredients,
+                recipe.getCreatedByUsername(),
+                recipe.getCreatedAt(),
+                recipe.getUpdatedAt(),
+                recipe.getVersion()
+        );
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.rezeptapp.dto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Facetten-Zahlen zur aktuellen Suche (GET /rezeptapp?facets=true).
+ * Kategorien alphabetisch, Buckets in fester Reihenfolge (leere Buckets mit 0, "unknown" nur wenn vorhanden).
+ */
+public record RecipeFacets(
+        Map<String, Long> categories,
+        Map<String, Long> prepMinutes,
+        Map<String, Long> kcal
+) {
+
+    public static final List<String> PREP_BUCKETS = List.of("0-15", "16-30", "31-60", "60+");
+    public static final List<String> KCAL_BUCKETS = List.of("0-399", "400-599", "600-799", "800+");
+
+    private static final String UNKNOWN = "unknown";
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        // Schlüssel lower(category): Kategorien unterscheiden sich teils nur in Groß/Klein
+        private final Map<String, String> categoryNames = new LinkedHashMap<>();
+        private final Map<String, Long> categoryCounts = new LinkedHashMap<>();
+        private final Map<String, Long> prep = new LinkedHashMap<>();
+        private final Map<String, Long> kcal = new LinkedHashMap<>();
+
+        private Builder() {
+            for (String b : PREP_BUCKETS) prep.put(b, 0L);
+            for (String b : KCAL_BUCKETS) kcal.put(b, 0L);
+        }
+
+        public Builder addCategory(String category, long count) {
+            if (category == null || category.isBlank()) return this;
+
+            String name = category.trim();
+            String key = name.toLowerCase(Locale.ROOT);
+            categoryNames.putIfAbsent(key, name);
+            categoryCounts.merge(key, count, Long::sum);
+            return this;
+        }
+
+        public Builder addPrep(String bucket, long count) {
+            prep.merge(bucket == null ? UNKNOWN : bucket, count, Long::sum);
+            return this;
+        }
+
+        public Builder addKcal(String bucket, long count) {
+            kcal.merge(bucket == null ? UNKNOWN : bucket, count, Long::sum);
+            return this;
+        }
+
+        public RecipeFacets build() {
+            Map<String, Long> categories = new LinkedHashMap<>();
+            categoryCounts.keySet().stream()
+                    .sorted()
+                    .forEach(key -> categories.put(categoryNames.get(key), categoryCounts.get(key)));
+
+            return new RecipeFacets(categories, new LinkedHashMap<>(prep), new LinkedHashMap<>(kcal));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.rezeptapp.dto;
+
+import com.example.rezeptapp.model.Nutrition;
+import com.example.rezeptapp.model.Recipe;
+
+/**
+ * Schlanke Listen-Darstellung eines Rezepts (Grid/Karten).
+ * Enthält bewusst keine großen Spalten (instructions, imageBase64) und keine Zutaten.
+ */
+public record RecipeSummary(
+        Long id,
+        String title,
+        String category,
+        Integer prepMinutes,
+        Integer servings,
+        Nutrition nutrition,
+        String createdByUsername,
+        String thumbnailUrl,
+        String cardImageUrl
+) {
+
+    // wird von den JPQL-Konstruktor-Projektionen im RecipeRepository genutzt
+    public RecipeSummary(
+            Long id,
+            String title,
+            String category,
+            Integer prepMinutes,
+            Integer servings,
+            Integer caloriesKcal,
+            Double proteinG,
+            Double fatG,
+            Double carbsG,
+            String createdByUsername,
+            Boolean hasImage
+    ) {
+        this(
+                id,
+                title,
+                category,
+                prepMinutes,
+                servings,
+                nutrition(caloriesKcal, proteinG, fatG, carbsG),
+                createdByUsername,
+                Boolean.TRUE.equals(hasImage) ? imagePath(id, "thumb") : null,
+                Boolean.TRUE.equals(hasImage) ? imagePath(id, "card") : null
+        );
+    }
+
+    public static RecipeSummary of(Recipe recipe) {
+        String imageUrl = recipe.getImageUrl();
+        boolean hasImage = recipe.getImageSha256() != null || recipe.getImageBase64() != null
+                || (imageUrl != null && !imageUrl.isEmpty());
+
+        // Kopie, damit die Summary nicht am (veränderbaren) Embeddable der Entity hängt
+        Nutrition n = recipe.getNutrition() == null ? new Nutrition() : recipe.getNutrition();
+
+        return new RecipeSummary(
+                recipe.getId(),
+                recipe.getTitle(),
+                recipe.getCategory(),
+                recipe.getPrepMinutes(),
+                recipe.getServings(),
+                nutrition(n.getCaloriesKcal(), n.getProteinG(), n.getFatG(), n.getCarbsG()),
+                recipe.getCreatedByUsername(),
+                hasImage ? imagePath(recipe.getId(), "thumb") : null,
+                hasImage ? imagePath(recipe.getId(), "card") : null
+        );
+    }
+
+    public static String imagePath(Long id) {
+        return "/rezeptapp/" + id + "/image";
+    }
+
+    // verkleinerte Fassung (ThumbnailService.Rendition); liefert das Original, solange sie noch nicht erzeugt ist
+    public static String imagePath(Long id, String size) {
+        return imagePath(id) + "?size=" + size;
+    }
+
+    private static Nutrition nutrition(Integer caloriesKcal, Double proteinG, Double fatG, Double carbsG) {
+        Nutrition n = new Nutrition();
+        n.setCaloriesKcal(caloriesKcal);
+        n.setProteinG(proteinG);
+        n.setFatG(fatG);
+        n.setCarbsG(carbsG);
+        return n;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.rezeptapp.dto;
+
+// Autocomplete-Vorschlag; type = TITLE | CATEGORY | INGREDIENT
+public record Suggestion(String text, String type) {}
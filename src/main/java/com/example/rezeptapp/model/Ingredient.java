@@ -4,13 +4,21 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingredients")
 @Table(name = "ingredients")
 public class Ingredient {
 
+    // wie Recipe.id: Sequenz => Zutaten eines Rezepts gehen als ein Batch raus
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredients_seq")
+    @SequenceGenerator(name = "ingredients_seq", sequenceName = "ingredients_seq", allocationSize = 50)
     private Long id;
 
     // Pflicht
@@ -38,6 +46,18 @@ public class Ingredient {
         this.unit = unit;
     }
 
+    // Inhalt übernehmen, Identität (id, recipe) bleibt => gleiche Werte lösen kein UPDATE aus
+    boolean sameContent(Ingredient other) {
+        return Objects.equals(name, other.name) && Objects.equals(amount, other.amount) && Objects.equals(unit, other.unit);
+    }
+
+    Ingredient copyFrom(Ingredient other) {
+        this.name = other.name;
+        this.amount = other.amount;
+        this.unit = other.unit;
+        return this;
+    }
+
     public Long getId() { return id; }
 
     public String getName() { return name; }
@@ -1,22 +1,40 @@
 package com.example.rezeptapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "recipes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipes")
+@Table(name = "recipes", indexes = {
+        // Bereichsfilter/Sortierung der Rezeptlisten (RecipeQueryRepository)
+        @Index(name = "idx_recipes_calories_kcal", columnList = "calories_kcal"),
+        @Index(name = "idx_recipes_protein_g", columnList = "protein_g"),
+        @Index(name = "idx_recipes_fat_g", columnList = "fat_g"),
+        @Index(name = "idx_recipes_carbs_g", columnList = "carbs_g"),
+        @Index(name = "idx_recipes_prep_minutes", columnList = "prep_minutes"),
+        @Index(name = "idx_recipes_category", columnList = "category")
+})
 public class Recipe {
 
+    // Sequenz statt IDENTITY: Hibernate kennt die id vor dem INSERT und kann INSERTs bündeln (hibernate.jdbc.batch_size).
+    // Ein nextval reserviert 50 ids; Umstellung bestehender Postgres-Tabellen: IdSequenceMigration
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipes_seq")
+    @SequenceGenerator(name = "recipes_seq", sequenceName = "recipes_seq", allocationSize = 50)
     private Long id;
 
     // Pflicht
@@ -42,9 +60,15 @@ public class Recipe {
     private String imageUrl;
 
 
+    // Altbestand: wird nur noch gelesen und von ImageMigration in den Bild-Store verschoben
     @Column(name = "image_base64", columnDefinition = "TEXT")
     private String imageBase64;
 
+    // Verweis in den Bild-Store (recipe_images), Bytes liegen dort genau einmal
+    @JsonIgnore
+    @Column(name = "image_sha256", length = 64)
+    private String imageSha256;
+
     private Integer prepMinutes;
     private Integer servings;
 
@@ -58,7 +82,10 @@ public class Recipe {
     @NotNull(message = "ingredients ist Pflicht")
     @Size(min = 1, message = "mindestens 1 Zutat ist Pflicht")
     @Valid
+    // Reihenfolge = id-Reihenfolge (siehe mergeIngredients)
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe-ingredients")
     private List<Ingredient> ingredients = new ArrayList<>();
 
     // Variante A: Owner als String (passt zu ALTER TABLE ... created_by_username)
@@ -68,6 +95,13 @@ public class Recipe {
     private Instant createdAt;
     private Instant updatedAt;
 
+    // Optimistic Locking: jedes UPDATE prüft und erhöht die Version; ETag/If-Match der Detailansicht bauen darauf auf.
+    // Default 0 => ddl-auto=update kann die Spalte an bestehende Tabellen hängen, JDBC-Import braucht sie nicht
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Recipe() {}
 
     @PrePersist
@@ -91,6 +125,77 @@ public class Recipe {
         }
     }
 
+    /**
+     * Zutaten abgleichen statt alle zu löschen und neu einzufügen: unveränderte Zeilen bleiben unangetastet,
+     * geänderte werden überschrieben (UPDATE), nur der Überhang wird eingefügt bzw. gelöscht.
+     * Zuordnung über die id, ohne id über den Namen ab der aktuellen Position.
+     * Neue Zeilen bekommen die größte id => sie können nur hinten landen; reicht eine Lücke nicht,
+     * werden die folgenden Zeilen überschrieben, damit die Reihenfolge stimmt.
+     * Ändert sich dabei irgendetwas, wird das Rezept selbst angefasst (updatedAt): nur geänderte Zutaten-Zeilen
+     * machen die Recipe-Zeile nicht dirty => ohne das blieben @Version, ETags und If-Match beim Alten.
+     */
+    public void mergeIngredients(List<Ingredient> incoming) {
+        List<Ingredient> current = new ArrayList<>(this.ingredients);
+        current.sort(Comparator.comparing(Ingredient::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<Ingredient> result = new ArrayList<>(incoming.size());
+        List<Ingredient> pending = new ArrayList<>();
+        int cursor = 0;
+        boolean changed = false;
+
+        for (Ingredient in : incoming) {
+            int match = indexOfMatch(current, cursor, in);
+            if (match < 0 || match - cursor < pending.size()) {
+                pending.add(in);
+                continue;
+            }
+            // offene Zutaten in die Lücke vor dem Treffer, übrige Zeilen der Lücke fallen weg (orphanRemoval)
+            for (Ingredient p : pending) {
+                Ingredient target = current.get(cursor++);
+                changed |= !target.sameContent(p);
+                result.add(target.copyFrom(p));
+            }
+            changed |= !current.get(match).sameContent(in);
+            result.add(current.get(match).copyFrom(in));
+            cursor = match + 1;
+            pending.clear();
+        }
+        for (Ingredient p : pending) {
+            if (cursor < current.size()) {
+                Ingredient target = current.get(cursor++);
+                changed |= !target.sameContent(p);
+                result.add(target.copyFrom(p));
+            } else {
+                // neue Instanz: eine mitgeschickte (fremde) id darf nicht übernommen werden
+                Ingredient added = new Ingredient(p.getName(), p.getAmount(), p.getUnit());
+                added.setRecipe(this);
+                result.add(added);
+            }
+        }
+
+        // gleiche Zeilen in gleicher Reihenfolge => Collection nicht anfassen
+        if (!result.equals(this.ingredients)) {
+            this.ingredients.clear();
+            this.ingredients.addAll(result);
+            changed = true;
+        }
+
+        // Recipe-Zeile dirty => UPDATE mit version + 1, @PreUpdate setzt updatedAt endgültig
+        if (changed) updatedAt = Instant.now();
+    }
+
+    private static int indexOfMatch(List<Ingredient> current, int from, Ingredient in) {
+        for (int i = from; i < current.size(); i++) {
+            Ingredient existing = current.get(i);
+            boolean same = in.getId() != null
+                    ? in.getId().equals(existing.getId())
+                    : in.getName() != null && existing.getName() != null
+                        && in.getName().trim().equalsIgnoreCase(existing.getName().trim());
+            if (same) return i;
+        }
+        return -1;
+    }
+
     // ===== Getter / Setter =====
 
     public Long getId() { return id; }
@@ -114,6 +219,9 @@ public class Recipe {
     public String getImageBase64() { return imageBase64; }
     public void setImageBase64(String imageBase64) { this.imageBase64 = imageBase64; }
 
+    public String getImageSha256() { return imageSha256; }
+    public void setImageSha256(String imageSha256) { this.imageSha256 = imageSha256; }
+
     public Integer getPrepMinutes() { return prepMinutes; }
     public void setPrepMinutes(Integer prepMinutes) { this.prepMinutes = prepMinutes; }
 
@@ -131,6 +239,8 @@ public class Recipe {
     public Instant getCreatedAt() { return createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
 
+    public Long getVersion() { return version; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,69 @@
+package com.example.rezeptapp.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Rezeptbild als rohe Bytes, adressiert über den SHA-256 des Inhalts.
+ * Gleiches Bild => gleicher Schlüssel => wird nur einmal gespeichert; Einträge werden nie geändert.
+ * Bewusst nicht im Second-Level-Cache (groß, Auslieferung läuft über ETag/304).
+ */
+@Entity
+@Table(name = "recipe_images")
+public class RecipeImage implements Persistable<String> {
+
+    public static final int MAX_BYTES = 5 * 1024 * 1024;
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private int size;
+
+    @Column(nullable = false, length = MAX_BYTES)
+    private byte[] data;
+
+    private Instant createdAt;
+
+    // id wird vergeben, nicht generiert => ohne das Flag würde save() erst per SELECT nachsehen (merge)
+    @Transient
+    private boolean isNew = true;
+
+    public RecipeImage() {}
+
+    public RecipeImage(String sha256, String contentType, byte[] data) {
+        this.sha256 = sha256;
+        this.contentType = contentType;
+        this.data = data;
+        this.size = data.length;
+    }
+
+    @PrePersist
+    void onCreate() {
+        createdAt = Instant.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() { return sha256; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public String getSha256() { return sha256; }
+    public String getContentType() { return contentType; }
+    public int getSize() { return size; }
+    public byte[] getData() { return data; }
+    public Instant getCreatedAt() { return createdAt; }
+}
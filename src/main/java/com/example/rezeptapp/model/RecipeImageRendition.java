@@ -0,0 +1,72 @@
+package com.example.rezeptapp.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Verkleinerte Fassung (Thumbnail/Karte) eines Rezeptbilds, erzeugt von ThumbnailService.
+ * Schlüssel = "<sha256 des Originals>-<Größe>" => hängt am Inhalt, nicht am Rezept; Einträge werden nie geändert.
+ */
+@Entity
+@Table(name = "recipe_image_renditions")
+public class RecipeImageRendition implements Persistable<String> {
+
+    public static final int MAX_BYTES = 512 * 1024;
+
+    @Id
+    @Column(length = 80)
+    private String id;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private int width;
+
+    @Column(nullable = false)
+    private int height;
+
+    @Column(nullable = false, length = MAX_BYTES)
+    private byte[] data;
+
+    private Instant createdAt;
+
+    // id wird vergeben, nicht generiert (siehe RecipeImage)
+    @Transient
+    private boolean isNew = true;
+
+    public RecipeImageRendition() {}
+
+    public RecipeImageRendition(String id, String contentType, int width, int height, byte[] data) {
+        this.id = id;
+        this.contentType = contentType;
+        this.width = width;
+        this.height = height;
+        this.data = data;
+    }
+
+    @PrePersist
+    void onCreate() {
+        createdAt = Instant.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() { return id; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public String getContentType() { return contentType; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public byte[] getData() { return data; }
+    public Instant getCreatedAt() { return createdAt; }
+}
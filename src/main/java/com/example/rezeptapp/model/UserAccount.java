@@ -2,6 +2,8 @@ package com.example.rezeptapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -16,8 +18,10 @@ import java.util.Set;
 )
 public class UserAccount {
 
+    // wie Recipe.id (Sequenz, siehe IdSequenceMigration)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_users_seq")
+    @SequenceGenerator(name = "app_users_seq", sequenceName = "app_users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 50)
@@ -33,6 +37,7 @@ public class UserAccount {
 
     @JsonIgnore
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-favorites")
     @JoinTable(
             name = "app_user_favorites",
             joinColumns = @JoinColumn(name = "app_user_id"),
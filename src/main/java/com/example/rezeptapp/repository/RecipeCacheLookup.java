@@ -0,0 +1,13 @@
+package com.example.rezeptapp.repository;
+
+import com.example.rezeptapp.model.Recipe;
+
+import java.util.Collection;
+import java.util.List;
+
+// Ergänzung zu RecipeRepository: Laden über den Second-Level-Cache (JPQL-Queries wie findAllById gehen daran vorbei)
+public interface RecipeCacheLookup {
+
+    // Treffer aus dem Cache, nur die fehlenden ids per IN-Query; unbekannte ids fehlen im Ergebnis
+    List<Recipe> findAllByIdCached(Collection<Long> ids);
+}
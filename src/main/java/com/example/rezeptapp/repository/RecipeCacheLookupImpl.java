@@ -0,0 +1,31 @@
+package com.example.rezeptapp.repository;
+
+import com.example.rezeptapp.model.Recipe;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+class RecipeCacheLookupImpl implements RecipeCacheLookup {
+
+    private final EntityManager em;
+
+    RecipeCacheLookupImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public List<Recipe> findAllByIdCached(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+
+        return em.unwrap(Session.class)
+                .byMultipleIds(Recipe.class)
+                .multiLoad(new ArrayList<>(ids))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
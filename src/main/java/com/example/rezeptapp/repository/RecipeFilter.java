@@ -0,0 +1,70 @@
+package com.example.rezeptapp.repository;
+
+/**
+ * Filter der Rezeptlisten: Text, Kategorie, Nährwert- und Zubereitungszeit-Bereiche, Sortierung.
+ * Wird im Controller direkt aus den Query-Parametern gebunden (?maxKcal=600&minProteinG=25&sort=PREP_ASC).
+ * null = Filter nicht gesetzt.
+ */
+public record RecipeFilter(
+        String search,
+        String category,
+        Integer minKcal,
+        Integer maxKcal,
+        Double minProteinG,
+        Double maxProteinG,
+        Double maxFatG,
+        Double maxCarbsG,
+        Integer maxPrepMinutes,
+        RecipeSort sort
+) {
+
+    public static RecipeFilter of(String search, String category) {
+        return new RecipeFilter(search, category, null, null, null, null, null, null, null, null);
+    }
+
+    // Suchtext/Kategorie getrimmt (leer => null), Bereiche geprüft
+    public RecipeFilter normalized() {
+        requireRange("kcal", minKcal, maxKcal);
+        requireRange("proteinG", minProteinG, maxProteinG);
+        requireRange("fatG", null, maxFatG);
+        requireRange("carbsG", null, maxCarbsG);
+        requireRange("prepMinutes", null, maxPrepMinutes);
+
+        return new RecipeFilter(
+                blankToNull(search), blankToNull(category),
+                minKcal, maxKcal, minProteinG, maxProteinG, maxFatG, maxCarbsG, maxPrepMinutes,
+                sort
+        );
+    }
+
+    public RecipeFilter withCategory(String newCategory) {
+        return new RecipeFilter(
+                search, newCategory,
+                minKcal, maxKcal, minProteinG, maxProteinG, maxFatG, maxCarbsG, maxPrepMinutes,
+                sort
+        );
+    }
+
+    public boolean hasRanges() {
+        return minKcal != null || maxKcal != null
+                || minProteinG != null || maxProteinG != null
+                || maxFatG != null || maxCarbsG != null
+                || maxPrepMinutes != null;
+    }
+
+    private static void requireRange(String name, Number min, Number max) {
+        if (min != null && min.doubleValue() < 0) throw new IllegalArgumentException("min" + capitalize(name) + " darf nicht negativ sein");
+        if (max != null && max.doubleValue() < 0) throw new IllegalArgumentException("max" + capitalize(name) + " darf nicht negativ sein");
+        if (min != null && max != null && min.doubleValue() > max.doubleValue()) {
+            throw new IllegalArgumentException("min" + capitalize(name) + " ist größer als max" + capitalize(name));
+        }
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.rezeptapp.repository;
+
+import com.example.rezeptapp.model.RecipeImageRendition;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RecipeImageRenditionRepository extends JpaRepository<RecipeImageRendition, String> {
+}
@@ -0,0 +1,32 @@
+package com.example.rezeptapp.repository;
+
+import com.example.rezeptapp.model.RecipeImage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface RecipeImageRepository extends JpaRepository<RecipeImage, String> {
+
+    // gleichzeitige Uploads desselben Bildes: der zweite INSERT wird still verworfen statt PK-Verletzung; 1 => neu.
+    // native.spaces => Hibernate räumt nur recipe_images statt des ganzen L2-Caches
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "recipe_images"))
+    @Query(value = """
+            INSERT INTO recipe_images (sha256, content_type, size, data, created_at)
+            VALUES (:sha256, :contentType, :size, :data, :createdAt)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(
+            @Param("sha256") String sha256,
+            @Param("contentType") String contentType,
+            @Param("size") int size,
+            @Param("data") byte[] data,
+            @Param("createdAt") Instant createdAt
+    );
+}
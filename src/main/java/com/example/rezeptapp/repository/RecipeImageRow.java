@@ -0,0 +1,9 @@
+package com.example.rezeptapp.repository;
+
+// Interface-Projektion für GET /rezeptapp/{id}/image: Sichtbarkeit + Bildverweis, ohne Bild-Bytes/Base64 zu laden
+public interface RecipeImageRow {
+    String getOwner();
+    String getImageSha256();
+    String getImageUrl();
+    Boolean getLegacyImage();
+}
@@ -0,0 +1,7 @@
+package com.example.rezeptapp.repository;
+
+// Interface-Projektion für Besitzprüfungen (Massenlöschen): nur id + Besitzer, ohne das Rezept zu laden
+public interface RecipeOwner {
+    Long getId();
+    String getOwner();
+}
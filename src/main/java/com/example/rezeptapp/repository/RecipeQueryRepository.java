@@ -0,0 +1,372 @@
+package com.example.rezeptapp.repository;
+
+import com.example.rezeptapp.dto.RecipeFacets;
+import com.example.rezeptapp.dto.RecipeSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rezeptlisten als ein parametrisiertes SQL-Statement: Sichtbarkeit, Text, Kategorie,
+ * Nährwert-/Zeitbereiche und Sortierung werden je nach gesetztem Filter zusammengesetzt.
+ * Gleiche Filter-Kombination => gleiches SQL => gleicher (gecachter) Plan.
+ *
+ * Text: auf Postgres Volltext (tsvector, Konfiguration "german", GIN-Index, ts_rank), mit pg_trgm zusätzlich
+ * Teilstring per LIKE über den Trigramm-Index (wie vorher: "toffel" trifft "Kartoffel").
+ * Sonst (H2 in den Tests) nur LIKE auf Titel und Beschreibung.
+ */
+@Repository
+public class RecipeQueryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeQueryRepository.class);
+
+    // gepflegt von Postgres selbst (generated column), Hibernate kennt die Spalte nicht
+    private static final String ADD_COLUMN = """
+        ALTER TABLE recipes ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('german'::regconfig, coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('german'::regconfig, coalesce(description, '')), 'B')
+        ) STORED
+        """;
+
+    private static final String CREATE_INDEX = """
+        CREATE INDEX IF NOT EXISTS idx_recipes_search_vector ON recipes USING GIN (search_vector)
+        """;
+
+    // Trigramm-Index für den LIKE-Zweig (Teilstrings); Ausdrücke exakt wie im WHERE, sonst nutzt der Planer ihn nicht.
+    // Ohne pg_trgm entfällt der LIKE-Zweig neben dem Volltext (sonst Seq-Scan bei jeder Suche)
+    private static final String CREATE_TRGM_INDEX = """
+        CREATE INDEX IF NOT EXISTS idx_recipes_title_desc_trgm
+        ON recipes USING GIN (lower(title) gin_trgm_ops, lower(description) gin_trgm_ops)
+        """;
+
+    // Vorgänger mit lower(coalesce(description, '')) => vom Planer nie genutzt
+    private static final String DROP_OLD_TRGM_INDEX = "DROP INDEX IF EXISTS idx_recipes_text_trgm";
+
+    // Sichtbarkeit vergleicht lower(created_by_username) => Funktionsindex (per JPA nicht deklarierbar)
+    private static final String CREATE_OWNER_INDEX = """
+        CREATE INDEX IF NOT EXISTS idx_recipes_owner_lower ON recipes (lower(created_by_username), id)
+        """;
+
+    private static final String SELECT_SUMMARY = """
+        SELECT r.id, r.title, r.category, r.prep_minutes, r.servings,
+               r.calories_kcal, r.protein_g, r.fat_g, r.carbs_g,
+               r.created_by_username,
+               (r.image_sha256 IS NOT NULL OR r.image_base64 IS NOT NULL
+                OR (r.image_url IS NOT NULL AND r.image_url <> '')) AS has_image
+        """;
+
+    // Bucket-Grenzen passend zu RecipeFacets.PREP_BUCKETS / KCAL_BUCKETS
+    private static final String PREP_BUCKET = """
+        CASE WHEN r.prep_minutes IS NULL THEN 'unknown'
+             WHEN r.prep_minutes <= 15 THEN '0-15'
+             WHEN r.prep_minutes <= 30 THEN '16-30'
+             WHEN r.prep_minutes <= 60 THEN '31-60'
+             ELSE '60+' END""";
+
+    private static final String KCAL_BUCKET = """
+        CASE WHEN r.calories_kcal IS NULL THEN 'unknown'
+             WHEN r.calories_kcal < 400 THEN '0-399'
+             WHEN r.calories_kcal < 600 THEN '400-599'
+             WHEN r.calories_kcal < 800 THEN '600-799'
+             ELSE '800+' END""";
+
+    private static final RowMapper<RecipeSummary> SUMMARY_MAPPER = (rs, rowNum) -> new RecipeSummary(
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getString("category"),
+            rs.getObject("prep_minutes", Integer.class),
+            rs.getObject("servings", Integer.class),
+            rs.getObject("calories_kcal", Integer.class),
+            rs.getObject("protein_g", Double.class),
+            rs.getObject("fat_g", Double.class),
+            rs.getObject("carbs_g", Double.class),
+            rs.getString("created_by_username"),
+            rs.getBoolean("has_image")
+    );
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private volatile boolean fullTextAvailable;
+    private volatile boolean trigramIndexAvailable;
+
+    public RecipeQueryRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // wird beim Start aufgerufen (siehe FullTextSearchSetup), nachdem Hibernate das Schema angelegt hat
+    public void initialize() {
+        String product = jdbc.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+
+        if (product == null || !product.toLowerCase(Locale.ROOT).contains("postgres")) {
+            log.info("Volltextsuche deaktiviert (Datenbank: {}), Suche nutzt LIKE.", product);
+            return;
+        }
+
+        try {
+            jdbc.getJdbcTemplate().execute(CREATE_OWNER_INDEX);
+            jdbc.getJdbcTemplate().execute(ADD_COLUMN);
+            jdbc.getJdbcTemplate().execute(CREATE_INDEX);
+            fullTextAvailable = true;
+            log.info("Volltextsuche aktiv (tsvector/GIN).");
+        } catch (RuntimeException ex) {
+            log.warn("Volltextsuche konnte nicht eingerichtet werden, Suche nutzt LIKE.", ex);
+        }
+
+        try {
+            jdbc.getJdbcTemplate().execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbc.getJdbcTemplate().execute(CREATE_TRGM_INDEX);
+            jdbc.getJdbcTemplate().execute(DROP_OLD_TRGM_INDEX);
+            trigramIndexAvailable = true;
+        } catch (RuntimeException ex) {
+            log.warn("pg_trgm nicht verfügbar, Suche nur per Volltext (keine Teilstring-Treffer): {}", ex.getMessage());
+        }
+    }
+
+    public boolean isFullTextAvailable() {
+        return fullTextAvailable;
+    }
+
+    /**
+     * Sichtbare Rezepte passend zum Filter.
+     * afterId > 0 => Keyset ("id > afterId", nur sinnvoll bei RecipeSort.ID), offset > 0 => OFFSET.
+     * limit == null => alle Treffer.
+     */
+    public List<RecipeSummary> find(
+            RecipeScope scope,
+            String username,
+            RecipeFilter filter,
+            RecipeSort sort,
+            long afterId,
+            int offset,
+            Integer limit
+    ) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = listSql(scope, username, filter, sort, afterId, params);
+
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+            params.addValue("limit", limit);
+        }
+        if (offset > 0) {
+            sql.append(" OFFSET :offset");
+            params.addValue("offset", offset);
+        }
+
+        return jdbc.query(sql.toString(), params, SUMMARY_MAPPER);
+    }
+
+    // Position in einer sortierten Liste: Sortwert (null => NULL bzw. Sortierung nur nach id) und id der letzten Zeile
+    public record Keyset(Double value, long id) {}
+
+    public record KeysetRow(RecipeSummary summary, Keyset keyset) {}
+
+    /**
+     * Seite in beliebiger Sortierung, fortgesetzt nach (Sortwert, id) der letzten Zeile statt per OFFSET:
+     * jede Seite kostet gleich viel, und parallele Inserts/Deletes verschieben nichts (keine Lücken, keine Doppelten).
+     * after == null => erste Seite.
+     */
+    public List<KeysetRow> findAfter(
+            RecipeScope scope,
+            String username,
+            RecipeFilter filter,
+            RecipeSort sort,
+            Keyset after,
+            int limit
+    ) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        Conditions c = conditions(scope, username, filter, params);
+        String key = sortKey(sort, c.ranked());
+
+        if (after != null) c.where().add(keysetCondition(key, descending(sort), after, params));
+
+        StringBuilder sql = new StringBuilder(SELECT_SUMMARY)
+                .append(", ").append(key == null ? "CAST(NULL AS double precision)" : "CAST(" + key + " AS double precision)")
+                .append(" AS sort_value ")
+                .append(c.from());
+        if (!c.where().isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", c.where()));
+        sql.append(" ORDER BY ").append(orderBy(sort, c.ranked())).append(" LIMIT :limit");
+        params.addValue("limit", limit);
+
+        return jdbc.query(sql.toString(), params, (rs, rowNum) -> {
+            RecipeSummary summary = SUMMARY_MAPPER.mapRow(rs, rowNum);
+            double value = rs.getDouble("sort_value");
+            return new KeysetRow(summary, new Keyset(rs.wasNull() ? null : value, summary.id()));
+        });
+    }
+
+    // nach der letzten Zeile in ORDER-BY-Reihenfolge: erst Sortwert, bei Gleichstand id; NULLs stehen am Ende
+    private static String keysetCondition(String key, boolean descending, Keyset after, MapSqlParameterSource params) {
+        params.addValue("afterId", after.id());
+        if (key == null) return "r.id > :afterId";
+        if (after.value() == null) return "(" + key + " IS NULL AND r.id > :afterId)";
+
+        params.addValue("afterValue", after.value());
+        return "(" + key + (descending ? " < " : " > ") + ":afterValue"
+                + " OR (" + key + " = :afterValue AND r.id > :afterId)"
+                + " OR " + key + " IS NULL)";
+    }
+
+    // SELECT ... FROM ... WHERE ... ORDER BY ... ohne LIMIT/OFFSET
+    private StringBuilder listSql(
+            RecipeScope scope,
+            String username,
+            RecipeFilter filter,
+            RecipeSort sort,
+            long afterId,
+            MapSqlParameterSource params
+    ) {
+        Conditions c = conditions(scope, username, filter, params);
+
+        if (afterId > 0) {
+            c.where().add("r.id > :afterId");
+            params.addValue("afterId", afterId);
+        }
+
+        StringBuilder sql = new StringBuilder(SELECT_SUMMARY).append(c.from());
+        if (!c.where().isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", c.where()));
+        sql.append(" ORDER BY ").append(orderBy(sort, c.ranked()));
+        return sql;
+    }
+
+    /**
+     * Facetten zur aktuellen Abfrage in einem Aggregat-Statement: Anzahl je (Kategorie, Zeit-Bucket, kcal-Bucket).
+     * Der Kategorie-Filter wird dabei bewusst weggelassen und erst in Java angewendet:
+     * Kategorie-Zahlen zeigen so auch die anderen Kategorien, Zeit/kcal zählen nur die gewählte.
+     */
+    public RecipeFacets facets(RecipeScope scope, String username, RecipeFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        Conditions c = conditions(scope, username, filter.withCategory(null), params);
+
+        StringBuilder inner = new StringBuilder("SELECT r.category AS category, ")
+                .append(PREP_BUCKET).append(" AS prep_bucket, ")
+                .append(KCAL_BUCKET).append(" AS kcal_bucket ")
+                .append(c.from());
+        if (!c.where().isEmpty()) inner.append(" WHERE ").append(String.join(" AND ", c.where()));
+
+        String sql = "SELECT t.category, t.prep_bucket, t.kcal_bucket, COUNT(*) AS cnt FROM (" + inner
+                + ") t GROUP BY t.category, t.prep_bucket, t.kcal_bucket";
+
+        RecipeFacets.Builder facets = RecipeFacets.builder();
+        jdbc.query(sql, params, rs -> {
+            String category = rs.getString("category");
+            long count = rs.getLong("cnt");
+
+            facets.addCategory(category, count);
+            if (filter.category() == null || filter.category().equalsIgnoreCase(category)) {
+                facets.addPrep(rs.getString("prep_bucket"), count);
+                facets.addKcal(rs.getString("kcal_bucket"), count);
+            }
+        });
+        return facets.build();
+    }
+
+    // FROM + WHERE ohne Keyset/Sortierung; gemeinsam für Liste und Facetten
+    private Conditions conditions(RecipeScope scope, String username, RecipeFilter filter, MapSqlParameterSource params) {
+        List<String> where = new ArrayList<>();
+        String from = "FROM recipes r";
+
+        boolean ranked = false;
+        if (filter.search() != null) {
+            String like = "lower(r.title) LIKE :pattern ESCAPE '\\' OR lower(r.description) LIKE :pattern ESCAPE '\\'";
+            params.addValue("pattern", "%" + escapeLike(filter.search().toLowerCase(Locale.ROOT)) + "%");
+
+            String tsQuery = fullTextAvailable ? toTsQuery(filter.search()) : null;
+            if (tsQuery != null) {
+                // Volltext (Stemming, Ranking), mit Trigramm-Index plus Teilstring => beide Zweige indexgestützt
+                // (BitmapOr); reine Teilstring-Treffer landen bei RELEVANCE mit Rang 0 hinten
+                from += ", to_tsquery('german'::regconfig, :query) q";
+                where.add(trigramIndexAvailable ? "(r.search_vector @@ q OR " + like + ")" : "r.search_vector @@ q");
+                params.addValue("query", tsQuery);
+                ranked = true;
+            } else {
+                where.add("(" + like + ")");
+            }
+        }
+
+        switch (scope) {
+            case PUBLIC -> where.add("r.created_by_username IS NULL");
+            case PUBLIC_OR_OWNED -> {
+                where.add("(r.created_by_username IS NULL OR lower(r.created_by_username) = lower(:username))");
+                params.addValue("username", username);
+            }
+            case MINE -> {
+                where.add("lower(r.created_by_username) = lower(:username)");
+                params.addValue("username", username);
+            }
+        }
+
+        if (filter.category() != null) {
+            where.add("lower(r.category) = lower(:category)");
+            params.addValue("category", filter.category());
+        }
+
+        addBound(where, params, "r.calories_kcal >= :minKcal", "minKcal", filter.minKcal());
+        addBound(where, params, "r.calories_kcal <= :maxKcal", "maxKcal", filter.maxKcal());
+        addBound(where, params, "r.protein_g >= :minProteinG", "minProteinG", filter.minProteinG());
+        addBound(where, params, "r.protein_g <= :maxProteinG", "maxProteinG", filter.maxProteinG());
+        addBound(where, params, "r.fat_g <= :maxFatG", "maxFatG", filter.maxFatG());
+        addBound(where, params, "r.carbs_g <= :maxCarbsG", "maxCarbsG", filter.maxCarbsG());
+        addBound(where, params, "r.prep_minutes <= :maxPrepMinutes", "maxPrepMinutes", filter.maxPrepMinutes());
+
+        return new Conditions(from, where, ranked);
+    }
+
+    private record Conditions(String from, List<String> where, boolean ranked) {}
+
+    private static void addBound(List<String> where, MapSqlParameterSource params, String condition, String name, Number value) {
+        if (value == null) return;
+        where.add(condition);
+        params.addValue(name, value);
+    }
+
+    // Sortwert passend zu orderBy; null => nur nach id sortiert
+    private static String sortKey(RecipeSort sort, boolean ranked) {
+        return switch (sort) {
+            case RELEVANCE -> ranked ? "ts_rank(r.search_vector, q)" : null;
+            case KCAL_ASC, KCAL_DESC -> "r.calories_kcal";
+            case PROTEIN_DESC -> "r.protein_g";
+            case PREP_ASC -> "r.prep_minutes";
+            case ID -> null;
+        };
+    }
+
+    private static boolean descending(RecipeSort sort) {
+        return sort == RecipeSort.RELEVANCE || sort == RecipeSort.KCAL_DESC || sort == RecipeSort.PROTEIN_DESC;
+    }
+
+    // id als letzter Schlüssel => stabile Reihenfolge auch bei gleichen Werten
+    private static String orderBy(RecipeSort sort, boolean ranked) {
+        return switch (sort) {
+            case RELEVANCE -> ranked ? "ts_rank(r.search_vector, q) DESC, r.id ASC" : "r.id ASC";
+            case KCAL_ASC -> "r.calories_kcal ASC NULLS LAST, r.id ASC";
+            case KCAL_DESC -> "r.calories_kcal DESC NULLS LAST, r.id ASC";
+            case PROTEIN_DESC -> "r.protein_g DESC NULLS LAST, r.id ASC";
+            case PREP_ASC -> "r.prep_minutes ASC NULLS LAST, r.id ASC";
+            case ID -> "r.id ASC";
+        };
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // "Spaghetti carbo" => "spaghetti:* & carbo:*" (Präfix-Suche, damit Tippen "während" schon trifft)
+    static String toTsQuery(String search) {
+        if (search == null) return null;
+
+        List<String> terms = new ArrayList<>();
+        for (String token : search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isBlank()) terms.add(token + ":*");
+        }
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+}
@@ -1,74 +1,26 @@
 package com.example.rezeptapp.repository;
 
+import com.example.rezeptapp.dto.RecipeSummary;
 import com.example.rezeptapp.model.Recipe;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface RecipeRepository extends JpaRepository<Recipe, Long> {
+public interface RecipeRepository extends JpaRepository<Recipe, Long>, RecipeCacheLookup {
 
-    // für Seeder "Insert-if-missing"
-    boolean existsByTitleIgnoreCase(String title);
-
-    @Query("""
-        SELECT r FROM Recipe r
-        WHERE r.createdByUsername IS NULL
-           OR lower(r.createdByUsername) = lower(:username)
-        ORDER BY
-          CASE WHEN r.createdByUsername IS NULL THEN 0 ELSE 1 END ASC,
-          r.id ASC
-        """)
-    List<Recipe> findPublicOrOwned(@Param("username") String username);
-
-    @Query("""
-        SELECT r FROM Recipe r
-        WHERE (r.createdByUsername IS NULL OR lower(r.createdByUsername) = lower(:username))
-          AND (
-                lower(r.title) LIKE lower(concat('%', :search, '%'))
-             OR lower(r.description) LIKE lower(concat('%', :search, '%'))
-          )
-        ORDER BY
-          CASE WHEN r.createdByUsername IS NULL THEN 0 ELSE 1 END ASC,
-          r.id ASC
-        """)
-    List<Recipe> searchPublicOrOwned(
-            @Param("username") String username,
-            @Param("search") String search
-    );
-
-    @Query("""
-        SELECT r FROM Recipe r
-        WHERE (r.createdByUsername IS NULL OR lower(r.createdByUsername) = lower(:username))
-          AND lower(r.category) = lower(:category)
-        ORDER BY
-          CASE WHEN r.createdByUsername IS NULL THEN 0 ELSE 1 END ASC,
-          r.id ASC
-        """)
-    List<Recipe> findByCategoryPublicOrOwned(
-            @Param("username") String username,
-            @Param("category") String category
-    );
-
-    @Query("""
-        SELECT r FROM Recipe r
-        WHERE (r.createdByUsername IS NULL OR lower(r.createdByUsername) = lower(:username))
-          AND lower(r.category) = lower(:category)
-          AND (
-                lower(r.title) LIKE lower(concat('%', :search, '%'))
-             OR lower(r.description) LIKE lower(concat('%', :search, '%'))
-          )
-        ORDER BY
-          CASE WHEN r.createdByUsername IS NULL THEN 0 ELSE 1 END ASC,
-          r.id ASC
-        """)
-    List<Recipe> searchInCategoryPublicOrOwned(
-            @Param("username") String username,
-            @Param("category") String category,
-            @Param("search") String search
-    );
+    // DataSeeder: welche der (kleingeschriebenen) Titel gibt es schon? Ein Statement statt eins pro Rezept
+    @Query("SELECT lower(r.title) FROM Recipe r WHERE lower(r.title) IN :titles")
+    List<String> findExistingTitlesLower(@Param("titles") Collection<String> lowerTitles);
 
     @Query("""
         SELECT DISTINCT r.category
@@ -80,26 +32,35 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
         """)
     List<String> findCategoriesPublicOrOwned(@Param("username") String username);
 
+    // Listen mit Filtern/Pagination: siehe RecipeQueryRepository
+
     @Query("""
-        SELECT r FROM Recipe r
-        WHERE lower(r.createdByUsername) = lower(:username)
+        SELECT new com.example.rezeptapp.dto.RecipeSummary(
+            r.id, r.title, r.category, r.prepMinutes, r.servings,
+            r.nutrition.caloriesKcal, r.nutrition.proteinG, r.nutrition.fatG, r.nutrition.carbsG,
+            r.createdByUsername,
+            CASE WHEN r.imageSha256 IS NOT NULL OR r.imageBase64 IS NOT NULL
+                   OR (r.imageUrl IS NOT NULL AND r.imageUrl <> '') THEN true ELSE false END
+        )
+        FROM Recipe r
+        WHERE r.id IN :ids
         ORDER BY r.id ASC
         """)
-    List<Recipe> findMineOrdered(@Param("username") String username);
+    List<RecipeSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
+    // für den Aufbau der In-Memory-Suchindizes
     @Query("""
-        SELECT r FROM Recipe r
-        WHERE lower(r.createdByUsername) = lower(:username)
-          AND (
-                lower(r.title) LIKE lower(concat('%', :search, '%'))
-             OR lower(r.description) LIKE lower(concat('%', :search, '%'))
-          )
+        SELECT new com.example.rezeptapp.dto.RecipeSummary(
+            r.id, r.title, r.category, r.prepMinutes, r.servings,
+            r.nutrition.caloriesKcal, r.nutrition.proteinG, r.nutrition.fatG, r.nutrition.carbsG,
+            r.createdByUsername,
+            CASE WHEN r.imageSha256 IS NOT NULL OR r.imageBase64 IS NOT NULL
+                   OR (r.imageUrl IS NOT NULL AND r.imageUrl <> '') THEN true ELSE false END
+        )
+        FROM Recipe r
         ORDER BY r.id ASC
         """)
-    List<Recipe> searchMineOrdered(
-            @Param("username") String username,
-            @Param("search") String search
-    );
+    List<RecipeSummary> findAllSummaries();
 
     @Query("""
         SELECT r FROM Recipe r
@@ -108,39 +69,89 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
         """)
     List<Recipe> findPublicOnly();
 
+    // für den Public-Katalog-Snapshot: inkl. Zutaten in einem Statement
+    @EntityGraph(attributePaths = "ingredients")
     @Query("""
         SELECT r FROM Recipe r
         WHERE r.createdByUsername IS NULL
-          AND (
-                lower(r.title) LIKE lower(concat('%', :search, '%'))
-             OR lower(r.description) LIKE lower(concat('%', :search, '%'))
-          )
         ORDER BY r.id ASC
         """)
-    List<Recipe> searchPublicOnly(@Param("search") String search);
+    List<Recipe> findPublicWithIngredients();
 
+    // für den Aufbau der In-Memory-Suchindizes
     @Query("""
-        SELECT r FROM Recipe r
-        WHERE r.createdByUsername IS NULL
-          AND lower(r.category) = lower(:category)
+        SELECT r.id AS id, r.description AS text
+        FROM Recipe r
         ORDER BY r.id ASC
         """)
-    List<Recipe> findByCategoryPublicOnly(@Param("category") String category);
+    List<RecipeTextRow> findAllDescriptions();
 
     @Query("""
-        SELECT r FROM Recipe r
-        WHERE r.createdByUsername IS NULL
-          AND lower(r.category) = lower(:category)
-          AND (
-                lower(r.title) LIKE lower(concat('%', :search, '%'))
-             OR lower(r.description) LIKE lower(concat('%', :search, '%'))
-          )
+        SELECT i.recipe.id AS id, i.name AS text
+        FROM Ingredient i
+        ORDER BY i.recipe.id ASC, i.id ASC
+        """)
+    List<RecipeTextRow> findAllIngredientNames();
+
+    @Query("""
+        SELECT r.createdByUsername AS owner, r.imageSha256 AS imageSha256, r.imageUrl AS imageUrl,
+               CASE WHEN r.imageBase64 IS NOT NULL THEN true ELSE false END AS legacyImage
+        FROM Recipe r
+        WHERE r.id = :id
+        """)
+    Optional<RecipeImageRow> findImageRowById(@Param("id") Long id);
+
+    // Altbestand für ImageMigration: Base64 in image_base64 oder als data:-URL in image_url
+    @Query("""
+        SELECT r.id FROM Recipe r
+        WHERE r.id > :afterId
+          AND (r.imageBase64 IS NOT NULL OR r.imageUrl LIKE 'data:%')
         ORDER BY r.id ASC
         """)
-    List<Recipe> searchInCategoryPublicOnly(
-            @Param("category") String category,
-            @Param("search") String search
-    );
+    List<Long> findLegacyImageIds(@Param("afterId") long afterId, Limit limit);
+
+    // ===== Massenlöschen (RecipeService.deleteAllForUser): Besitz in einer Abfrage, dann je ein DELETE ... IN =====
+
+    @Query("SELECT r.id AS id, r.createdByUsername AS owner FROM Recipe r WHERE r.id IN :ids")
+    List<RecipeOwner> findOwnersByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Join-Tabelle ohne eigene Entity => natives SQL, UserAccount wird nicht geladen;
+    // native.spaces => Hibernate räumt nur den Favoriten-Cache statt des ganzen L2-Caches
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "app_user_favorites"))
+    @Query(value = "DELETE FROM app_user_favorites WHERE recipe_id IN (:ids)", nativeQuery = true)
+    int deleteFavoriteLinks(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Ingredient i WHERE i.recipe.id IN :ids")
+    int deleteIngredientsByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    // clear => schon geladene Rezepte im Persistence Context sind danach nicht mehr "da"
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Recipe r WHERE r.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    // für ETag/Last-Modified: ohne das Rezept selbst zu laden
+    @Query("""
+        SELECT r.createdByUsername AS owner, r.updatedAt AS updatedAt, r.version AS version
+        FROM Recipe r
+        WHERE r.id = :id
+        """)
+    Optional<RecipeStamp> findStampById(@Param("id") Long id);
+
+    @Query("""
+        SELECT new com.example.rezeptapp.repository.RecipeSetVersion(count(r), max(r.updatedAt))
+        FROM Recipe r
+        WHERE lower(r.createdByUsername) = lower(:username)
+        """)
+    RecipeSetVersion findOwnedVersion(@Param("username") String username);
+
+    @Query("""
+        SELECT new com.example.rezeptapp.repository.RecipeSetVersion(count(r), max(r.updatedAt))
+        FROM Recipe r
+        WHERE r.createdByUsername IS NULL
+        """)
+    RecipeSetVersion findPublicVersion();
 
     @Query("""
         SELECT DISTINCT r.category
@@ -162,10 +173,22 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
             @Param("username") String username
     );
 
+    // Batch-Abruf (RecipeService.findDetailsForUser): sichtbare Rezepte inkl. Zutaten in einem Statement
+    @EntityGraph(attributePaths = "ingredients")
+    @Query("""
+        SELECT r FROM Recipe r
+        WHERE r.id IN :ids
+          AND (r.createdByUsername IS NULL OR lower(r.createdByUsername) = lower(:username))
+        """)
+    List<Recipe> findVisibleWithIngredientsByIdIn(
+            @Param("ids") Collection<Long> ids,
+            @Param("username") String username
+    );
+
     @Query("""
         SELECT r FROM Recipe r
         WHERE r.id = :id
           AND r.createdByUsername IS NULL
         """)
     Optional<Recipe> findPublicById(@Param("id") Long id);
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package com.example.rezeptapp.repository;
+
+// Sichtbarkeit einer Rezept-Abfrage
+public enum RecipeScope {
+    PUBLIC,            // Gast: nur Seeder-Rezepte
+    PUBLIC_OR_OWNED,   // eingeloggt: public + eigene
+    MINE               // "__mine__": nur eigene
+}
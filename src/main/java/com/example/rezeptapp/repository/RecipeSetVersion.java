@@ -0,0 +1,15 @@
+package com.example.rezeptapp.repository;
+
+import java.time.Instant;
+
+/**
+ * Stand einer Rezeptmenge (z.B. "eigene Rezepte eines Users") für List-ETags.
+ * Neues/gelöschtes Rezept ändert count, Änderung ändert lastUpdated.
+ */
+public record RecipeSetVersion(Long count, Instant lastUpdated) {
+
+    public String token() {
+        long millis = lastUpdated == null ? 0L : lastUpdated.toEpochMilli();
+        return (count == null ? 0L : count) + "." + millis;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.rezeptapp.repository;
+
+// Sortierung der Rezeptlisten (Query-Parameter sort=...)
+public enum RecipeSort {
+    ID,            // Standard: Keyset-Pagination über id
+    RELEVANCE,     // nur mit Suchtext und Postgres-Volltext, sonst wie ID
+    KCAL_ASC,
+    KCAL_DESC,
+    PROTEIN_DESC,
+    PREP_ASC
+}
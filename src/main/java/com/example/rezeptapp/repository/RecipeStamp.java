@@ -0,0 +1,10 @@
+package com.example.rezeptapp.repository;
+
+import java.time.Instant;
+
+// Interface-Projektion für HTTP-Validierung (ETag/Last-Modified): Besitzer + Änderungsstand, ohne große Spalten
+public interface RecipeStamp {
+    String getOwner();
+    Instant getUpdatedAt();
+    Long getVersion();
+}
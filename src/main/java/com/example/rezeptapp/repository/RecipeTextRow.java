@@ -0,0 +1,7 @@
+package com.example.rezeptapp.repository;
+
+// Interface-Projektion (id + ein Textfeld) für den Aufbau der Suchindizes
+public interface RecipeTextRow {
+    Long getId();
+    String getText();
+}
@@ -0,0 +1,91 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.service.RecipeChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Gemeinsamer Lebenszyklus der In-Memory-Indizes über einer DocTable:
+ * Aufbau aus der DB nach dem Start, danach inkrementell per RecipeChangedEvent (AFTER_COMMIT).
+ *
+ * Events, die vor oder während des Aufbaus ankommen, werden gesammelt und danach nachgespielt
+ * (schon geladene Stände sind idempotent) => kein Commit zwischen Laden und Fertigstellung geht verloren.
+ * Danach wird nie mehr neu aufgebaut: auch kleinere ids werden direkt einsortiert (siehe DocTable).
+ */
+public abstract class DocIndex<D> {
+
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    DocTable<D> docs = new DocTable<>(0);
+
+    // nur unter writeLock
+    private final List<RecipeChangedEvent> pending = new ArrayList<>();
+    private volatile boolean ready;
+
+    // nach DataSeeder (CommandLineRunner) => Seeder-Rezepte sind schon in der DB
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<RecipeDocument> all = loadAll();
+
+        lock.writeLock().lock();
+        try {
+            docs = new DocTable<>(all.size());
+            clear();
+            for (RecipeDocument doc : all) index(docs.add(doc.id()), doc);
+
+            // seit dem Laden committete Änderungen nachziehen
+            for (RecipeChangedEvent event : pending) apply(event);
+            pending.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        built(all.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            // ready wird nur unter writeLock gesetzt => jedes Event wird entweder gesammelt oder direkt angewendet
+            if (ready) apply(event);
+            else pending.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ===== pro Index (index/remove/clear nur unter writeLock) =====
+
+    // alle Rezepte, nach id sortiert; läuft ohne Lock
+    abstract List<RecipeDocument> loadAll();
+
+    abstract void clear();
+
+    // Postings für doc eintragen und die Nutzdaten in docs ablegen
+    abstract void index(int ordinal, RecipeDocument doc);
+
+    // Postings austragen und den Slot leeren (doc == null)
+    abstract void remove(int ordinal);
+
+    // Log nach dem Aufbau
+    abstract void built(int count);
+
+    private void apply(RecipeChangedEvent event) {
+        int ordinal = docs.ordinalOf(event.recipeId());
+        if (ordinal >= 0) remove(ordinal);
+        if (event.isDeleted()) return;
+
+        if (ordinal < 0) ordinal = docs.add(event.recipeId());
+        index(ordinal, event.document());
+    }
+}
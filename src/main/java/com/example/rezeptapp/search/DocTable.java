@@ -0,0 +1,92 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.repository.RecipeScope;
+
+import java.util.Arrays;
+
+/**
+ * Doc-Tabelle der In-Memory-Indizes: Rezept-id <=> Ordinal (int) und Nutzdaten je Ordinal.
+ * Postings speichern Ordinals statt ids => kompakte sortierte int[] (siehe Postings).
+ *
+ * Ordinals werden in Ankunftsreihenfolge vergeben und nie umnummeriert => Postings bleiben gültig, auch wenn
+ * eine id kleiner als die bisher größte ankommt (pooled Sequenzen + parallele Commits). id => Ordinal über ein
+ * sortiertes long[] mit parallelem int[]; gelöschte Rezepte behalten ihren Slot (doc == null).
+ * Nicht threadsafe: nur unter dem Lock des jeweiligen Index benutzen.
+ */
+final class DocTable<D> {
+
+    // Ordinal => id / Nutzdaten
+    private long[] ids;
+    private Object[] docs;
+    private int size;
+
+    // aufsteigende ids mit ihrem Ordinal (beim Aufbau nach id geladen => dort nur Anhängen)
+    private long[] sortedIds;
+    private int[] sortedOrdinals;
+
+    DocTable(int capacity) {
+        ids = new long[Math.max(16, capacity)];
+        docs = new Object[ids.length];
+        sortedIds = new long[ids.length];
+        sortedOrdinals = new int[ids.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int ordinal) {
+        return ids[ordinal];
+    }
+
+    @SuppressWarnings("unchecked")
+    D get(int ordinal) {
+        return (D) docs[ordinal];
+    }
+
+    void set(int ordinal, D doc) {
+        docs[ordinal] = doc;
+    }
+
+    // -1 => id hat (noch) keinen Slot
+    int ordinalOf(long id) {
+        int pos = Arrays.binarySearch(sortedIds, 0, size, id);
+        return pos >= 0 ? sortedOrdinals[pos] : -1;
+    }
+
+    // neuer Slot am Ende; id wird in die sortierte Tabelle einsortiert (nur primitive Arrays verschieben)
+    int add(long id) {
+        int pos = Arrays.binarySearch(sortedIds, 0, size, id);
+        if (pos >= 0) return sortedOrdinals[pos];
+
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            docs = Arrays.copyOf(docs, capacity);
+            sortedIds = Arrays.copyOf(sortedIds, capacity);
+            sortedOrdinals = Arrays.copyOf(sortedOrdinals, capacity);
+        }
+
+        int ordinal = size;
+        int at = -(pos + 1);
+        System.arraycopy(sortedIds, at, sortedIds, at + 1, size - at);
+        System.arraycopy(sortedOrdinals, at, sortedOrdinals, at + 1, size - at);
+        sortedIds[at] = id;
+        sortedOrdinals[at] = ordinal;
+
+        ids[ordinal] = id;
+        size++;
+        return ordinal;
+    }
+
+    // gleiche Sichtbarkeit wie in RecipeQueryRepository (Besitzer ohne Groß/Klein)
+    static boolean visible(RecipeSummary summary, RecipeScope scope, String username) {
+        String owner = summary.createdByUsername();
+        return switch (scope) {
+            case PUBLIC -> owner == null;
+            case PUBLIC_OR_OWNED -> owner == null || owner.equalsIgnoreCase(username);
+            case MINE -> owner != null && owner.equalsIgnoreCase(username);
+        };
+    }
+}
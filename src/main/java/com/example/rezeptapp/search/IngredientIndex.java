@@ -0,0 +1,187 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.dto.IngredientMatch;
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.repository.RecipeScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * "Was kann ich mit meinen Zutaten kochen?" – invertierter Index normalisierter Zutatenname => Rezept-Ordinals.
+ *
+ * Zutaten werden auf Wörter normalisiert ("Parmesan, gerieben" => "parmesan gerieben").
+ * Eine vorhandene Zutat deckt jede Rezept-Zutat ab, die alle ihre Wörter enthält ("parmesan" deckt "Parmesan, gerieben").
+ * Abfrage: passende Zutaten-Keys auflösen, deren sortierte int[]-Postings durchlaufen und pro Rezept zählen.
+ * Keine Joins pro Request – die DB wird nur beim Aufbau gelesen.
+ */
+@Component
+public class IngredientIndex extends DocIndex<IngredientIndex.Doc> {
+
+    private static final Logger log = LoggerFactory.getLogger(IngredientIndex.class);
+
+    private final RecipeDocumentLoader loader;
+
+    // Zutaten-Key => Rezept-Ordinals; Wort => Zutaten-Keys (für "parmesan" => "parmesan gerieben")
+    private final Postings postings = new Postings();
+    private final Map<String, Set<String>> keysByWord = new HashMap<>();
+
+    public IngredientIndex(RecipeDocumentLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Sichtbare Rezepte mit mindestens einer vorhandenen Zutat.
+     * Sortierung: Abdeckung (available/total) absteigend, dann weniger fehlende Zutaten, dann id.
+     * maxMissing == null => keine Obergrenze für fehlende Zutaten.
+     */
+    public List<IngredientMatch> search(
+            RecipeScope scope,
+            String username,
+            String category,
+            Collection<String> have,
+            Integer maxMissing,
+            int limit
+    ) {
+        lock.readLock().lock();
+        try {
+            Set<String> matchedKeys = resolve(have);
+            if (matchedKeys.isEmpty()) return List.of();
+
+            // pro Rezept zählen, wie viele seiner Zutaten vorhanden sind (Keys je Rezept sind distinct)
+            int[] available = new int[docs.size()];
+            for (String key : matchedKeys) {
+                for (int o : postings.get(key)) available[o]++;
+            }
+
+            List<Integer> candidates = new ArrayList<>();
+            for (int o = 0; o < docs.size(); o++) {
+                if (available[o] == 0) continue;
+
+                Doc doc = docs.get(o);
+                if (doc == null || !DocTable.visible(doc.summary(), scope, username)) continue;
+                if (category != null && !category.equalsIgnoreCase(doc.summary().category())) continue;
+                if (maxMissing != null && doc.keys().length - available[o] > maxMissing) continue;
+
+                candidates.add(o);
+            }
+
+            // a/x > b/y  <=>  a*y > b*x (ohne double-Rundung)
+            Comparator<Integer> byCoverage = (o1, o2) -> Long.compare(
+                    (long) available[o2] * docs.get(o1).keys().length,
+                    (long) available[o1] * docs.get(o2).keys().length);
+            candidates.sort(byCoverage
+                    .thenComparingInt(o -> docs.get(o).keys().length - available[o])
+                    .thenComparingLong(docs::id));
+
+            List<IngredientMatch> result = new ArrayList<>();
+            for (int i = 0; i < candidates.size() && i < limit; i++) {
+                int o = candidates.get(i);
+                Doc doc = docs.get(o);
+
+                List<String> missing = new ArrayList<>();
+                for (int k = 0; k < doc.keys().length; k++) {
+                    if (!matchedKeys.contains(doc.keys()[k])) missing.add(doc.names()[k]);
+                }
+                result.add(new IngredientMatch(doc.summary(), available[o], doc.keys().length, missing));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== intern (nur unter writeLock/readLock aufrufen) =====
+
+    // keys: normalisierte Zutaten (distinct), names: Anzeigenamen parallel dazu; gelöschte Slots: doc == null
+    record Doc(RecipeSummary summary, String[] keys, String[] names) {}
+
+    // vorhandene Zutaten => alle Zutaten-Keys, die sämtliche Wörter der Eingabe enthalten
+    private Set<String> resolve(Collection<String> have) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String name : have) {
+            Set<String> words = TextTokenizer.tokenize(name);
+            if (words.isEmpty()) continue;
+
+            Set<String> matching = null;
+            for (String word : words) {
+                Set<String> withWord = keysByWord.getOrDefault(word, Set.of());
+                if (matching == null) matching = new LinkedHashSet<>(withWord);
+                else matching.retainAll(withWord);
+                if (matching.isEmpty()) break;
+            }
+            keys.addAll(matching);
+        }
+        return keys;
+    }
+
+    @Override
+    List<RecipeDocument> loadAll() {
+        return loader.loadAll();
+    }
+
+    @Override
+    void clear() {
+        postings.clear();
+        keysByWord.clear();
+    }
+
+    @Override
+    void index(int ordinal, RecipeDocument doc) {
+        Map<String, String> byKey = new LinkedHashMap<>();
+        for (String name : doc.ingredientNames()) {
+            String key = normalize(name);
+            if (!key.isEmpty()) byKey.putIfAbsent(key, name.trim());
+        }
+
+        for (String key : byKey.keySet()) {
+            if (!postings.add(key, ordinal)) continue;
+            for (String word : key.split(" ")) {
+                keysByWord.computeIfAbsent(word, w -> new LinkedHashSet<>()).add(key);
+            }
+        }
+
+        docs.set(ordinal, new Doc(
+                doc.summary(),
+                byKey.keySet().toArray(new String[0]),
+                byKey.values().toArray(new String[0])));
+    }
+
+    @Override
+    void remove(int ordinal) {
+        Doc doc = docs.get(ordinal);
+        if (doc == null) return;
+
+        for (String key : doc.keys()) {
+            if (!postings.remove(key, ordinal)) continue;
+
+            for (String word : key.split(" ")) {
+                Set<String> set = keysByWord.get(word);
+                if (set == null) continue;
+                set.remove(key);
+                if (set.isEmpty()) keysByWord.remove(word);
+            }
+        }
+        docs.set(ordinal, null);
+    }
+
+    @Override
+    void built(int count) {
+        log.info("Zutaten-Index aufgebaut: {} Rezepte, {} Zutaten.", count, postings.keyCount());
+    }
+
+    // "Parmesan, gerieben" => "parmesan gerieben"
+    static String normalize(String name) {
+        return String.join(" ", TextTokenizer.tokenize(name));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.rezeptapp.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Invertierte Listen der In-Memory-Indizes: Schlüssel (Trigramm, Zutat) => sortierte Ordinals als int[].
+ * Änderungen kopieren die betroffene Liste (Rezepte ändern sich selten, gelesen wird ständig).
+ * Nicht threadsafe: nur unter dem Lock des jeweiligen Index benutzen.
+ */
+final class Postings {
+
+    private final Map<String, int[]> lists = new HashMap<>();
+
+    // null => kein Rezept mit diesem Schlüssel
+    int[] get(String key) {
+        return lists.get(key);
+    }
+
+    int keyCount() {
+        return lists.size();
+    }
+
+    void clear() {
+        lists.clear();
+    }
+
+    // true => Schlüssel ist neu
+    boolean add(String key, int ordinal) {
+        int[] list = lists.get(key);
+        lists.put(key, list == null ? new int[]{ordinal} : withOrdinal(list, ordinal));
+        return list == null;
+    }
+
+    // true => letzte Ordinal entfernt, Schlüssel ist weg
+    boolean remove(String key, int ordinal) {
+        int[] list = lists.get(key);
+        if (list == null) return false;
+
+        int[] rest = withoutOrdinal(list, ordinal);
+        if (rest.length > 0) {
+            lists.put(key, rest);
+            return false;
+        }
+        lists.remove(key);
+        return true;
+    }
+
+    private static int[] withOrdinal(int[] list, int ordinal) {
+        int pos = Arrays.binarySearch(list, ordinal);
+        if (pos >= 0) return list;
+
+        int at = -(pos + 1);
+        int[] copy = new int[list.length + 1];
+        System.arraycopy(list, 0, copy, 0, at);
+        copy[at] = ordinal;
+        System.arraycopy(list, at, copy, at + 1, list.length - at);
+        return copy;
+    }
+
+    private static int[] withoutOrdinal(int[] list, int ordinal) {
+        int pos = Arrays.binarySearch(list, ordinal);
+        if (pos < 0) return list;
+
+        int[] copy = new int[list.length - 1];
+        System.arraycopy(list, 0, copy, 0, pos);
+        System.arraycopy(list, pos + 1, copy, pos, list.length - pos - 1);
+        return copy;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.dto.RecipeDetail;
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.model.Recipe;
+import com.example.rezeptapp.repository.RecipeRepository;
+import com.example.rezeptapp.repository.RecipeSetVersion;
+import com.example.rezeptapp.service.RecipeChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vorberechneter Snapshot des public Katalogs (Seeder-Rezepte, createdByUsername IS NULL):
+ * Liste, Listen je Kategorie, Kategorien und Detailansichten.
+ * Public Rezepte sind nicht änderbar (siehe RecipeService.requireOwner) => Gast-Anfragen brauchen keine DB.
+ *
+ * Der Snapshot ist unveränderlich; eine Änderung baut einen neuen (mit neuer Version) und tauscht ihn atomar aus.
+ */
+@Component
+public class PublicCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicCatalog.class);
+
+    private final RecipeRepository repo;
+    private final AtomicLong versions = new AtomicLong();
+
+    // null => noch nicht aufgebaut (Aufrufer fallen auf die DB zurück)
+    private volatile Snapshot snapshot;
+
+    // > 0 => Massenänderung läuft (z.B. ImageMigration), Änderungen nur vormerken und am Ende einmal bauen
+    private int suspended;
+    private boolean dirty;
+
+    public PublicCatalog(RecipeRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * recipes und die Listen in byCategory sind nach id sortiert (passt zur Keyset-Pagination),
+     * byCategory-Schlüssel ist lower(category) wie im SQL-Filter.
+     * content = Anzahl + letzte Änderung (wie RecipeRepository.findPublicVersion), stabil über Neustarts => für ETags.
+     */
+    public record Snapshot(
+            long version,
+            RecipeSetVersion content,
+            List<RecipeSummary> recipes,
+            Map<String, List<RecipeSummary>> byCategory,
+            List<String> categories,
+            Map<Long, RecipeDetail> details
+    ) {
+
+        public RecipeDetail detail(long id) {
+            return details.get(id);
+        }
+
+        // ids > afterId, höchstens limit (null => alle)
+        public List<RecipeSummary> page(String category, long afterId, Integer limit) {
+            List<RecipeSummary> list = category == null
+                    ? recipes
+                    : byCategory.getOrDefault(category.toLowerCase(Locale.ROOT), List.of());
+
+            int from = firstAfter(list, afterId);
+            int to = limit == null ? list.size() : (int) Math.min(list.size(), (long) from + limit);
+            return from >= to ? List.of() : list.subList(from, to);
+        }
+
+        private static int firstAfter(List<RecipeSummary> list, long afterId) {
+            int lo = 0, hi = list.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (list.get(mid).id() <= afterId) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    // nach DataSeeder (CommandLineRunner) => Seeder-Rezepte sind schon in der DB
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        List<Recipe> recipes = repo.findPublicWithIngredients();
+
+        List<RecipeSummary> summaries = new ArrayList<>(recipes.size());
+        Map<String, List<RecipeSummary>> byCategory = new HashMap<>();
+        Map<Long, RecipeDetail> details = new HashMap<>();
+        Map<String, String> categories = new LinkedHashMap<>();
+        Instant lastUpdated = null;
+
+        for (Recipe recipe : recipes) {
+            if (recipe.getUpdatedAt() != null && (lastUpdated == null || recipe.getUpdatedAt().isAfter(lastUpdated))) {
+                lastUpdated = recipe.getUpdatedAt();
+            }
+
+            RecipeSummary summary = RecipeSummary.of(recipe);
+            summaries.add(summary);
+            details.put(recipe.getId(), RecipeDetail.of(recipe));
+
+            String category = recipe.getCategory();
+            if (category == null || category.isBlank()) continue;
+
+            byCategory.computeIfAbsent(category.toLowerCase(Locale.ROOT), c -> new ArrayList<>()).add(summary);
+            categories.putIfAbsent(category.trim(), category.trim());
+        }
+
+        Map<String, List<RecipeSummary>> frozen = new HashMap<>();
+        byCategory.forEach((key, list) -> frozen.put(key, List.copyOf(list)));
+
+        List<String> sortedCategories = categories.keySet().stream()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .toList();
+
+        Snapshot next = new Snapshot(
+                versions.incrementAndGet(),
+                new RecipeSetVersion((long) recipes.size(), lastUpdated),
+                List.copyOf(summaries),
+                Map.copyOf(frozen),
+                sortedCategories,
+                Map.copyOf(details)
+        );
+        snapshot = next;
+        log.info("Public-Katalog v{}: {} Rezepte, {} Kategorien.", next.version(), summaries.size(), sortedCategories.size());
+    }
+
+    // eigene Rezepte ändern den Katalog nie => nur bei public Rezepten neu aufbauen
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null) return;
+
+        boolean known = current.details().containsKey(event.recipeId());
+        boolean publicNow = !event.isDeleted() && event.document().isPublic();
+        if (!known && !publicNow) return;
+
+        synchronized (this) {
+            if (suspended > 0) {
+                dirty = true;
+                return;
+            }
+        }
+        build();
+    }
+
+    /**
+     * Während einer Massenänderung nicht pro Rezept neu bauen (sonst O(N²)), sondern einmal bei resumeRebuilds().
+     * Aufrufe müssen paarweise erfolgen (try/finally).
+     */
+    public synchronized void suspendRebuilds() {
+        suspended++;
+    }
+
+    public void resumeRebuilds() {
+        synchronized (this) {
+            if (--suspended > 0 || !dirty) return;
+            dirty = false;
+        }
+        build();
+    }
+
+    public Snapshot current() {
+        return snapshot;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.model.Ingredient;
+import com.example.rezeptapp.model.Recipe;
+
+import java.util.List;
+
+/**
+ * Unveränderlicher Auszug eines Rezepts für die In-Memory-Indizes.
+ * Wird innerhalb der Transaktion aus der Entity gebaut, damit die Indizes nie lazy nachladen müssen.
+ */
+public record RecipeDocument(
+        long id,
+        String owner,
+        String title,
+        String description,
+        String category,
+        List<String> ingredientNames,
+        RecipeSummary summary
+) {
+
+    public static RecipeDocument of(Recipe recipe) {
+        List<String> ingredientNames = recipe.getIngredients() == null
+                ? List.of()
+                : recipe.getIngredients().stream()
+                        .map(Ingredient::getName)
+                        .filter(n -> n != null && !n.isBlank())
+                        .toList();
+
+        return new RecipeDocument(
+                recipe.getId(),
+                recipe.getCreatedByUsername(),
+                recipe.getTitle(),
+                recipe.getDescription(),
+                recipe.getCategory(),
+                ingredientNames,
+                RecipeSummary.of(recipe)
+        );
+    }
+
+    public boolean isPublic() {
+        return owner == null;
+    }
+}
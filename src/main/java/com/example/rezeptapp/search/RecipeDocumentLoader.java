@@ -0,0 +1,52 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.repository.RecipeRepository;
+import com.example.rezeptapp.repository.RecipeTextRow;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lädt alle Rezepte als RecipeDocument für den Aufbau der In-Memory-Indizes.
+ * Nur über Projektionen (Summary, Beschreibung, Zutatennamen) => instructions und Bilder werden nie gelesen.
+ */
+@Component
+public class RecipeDocumentLoader {
+
+    private final RecipeRepository repo;
+
+    public RecipeDocumentLoader(RecipeRepository repo) {
+        this.repo = repo;
+    }
+
+    public List<RecipeDocument> loadAll() {
+        Map<Long, String> descriptions = new HashMap<>();
+        for (RecipeTextRow row : repo.findAllDescriptions()) {
+            descriptions.put(row.getId(), row.getText());
+        }
+
+        Map<Long, List<String>> ingredients = new HashMap<>();
+        for (RecipeTextRow row : repo.findAllIngredientNames()) {
+            if (row.getText() == null || row.getText().isBlank()) continue;
+            ingredients.computeIfAbsent(row.getId(), id -> new ArrayList<>()).add(row.getText());
+        }
+
+        List<RecipeDocument> docs = new ArrayList<>();
+        for (RecipeSummary summary : repo.findAllSummaries()) {
+            docs.add(new RecipeDocument(
+                    summary.id(),
+                    summary.createdByUsername(),
+                    summary.title(),
+                    descriptions.get(summary.id()),
+                    summary.category(),
+                    List.copyOf(ingredients.getOrDefault(summary.id(), List.of())),
+                    summary
+            ));
+        }
+        return docs;
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.dto.Suggestion;
+import com.example.rezeptapp.service.RecipeChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autocomplete über Titel, Kategorien und Zutatennamen.
+ *
+ * Public-Vorschläge (Seeder-Rezepte, ändern sich praktisch nie) liegen in einem unveränderlichen Trie,
+ * in dem jeder Knoten seine Top-Vorschläge schon vorberechnet hat => Abfrage = Präfix ablaufen + Array lesen.
+ * Vorschläge aus eigenen Rezepten sind pro Nutzer wenige und werden linear dazugemischt.
+ * Jeder Vorschlag ist unter jedem Wortanfang erreichbar ("carbo" => "Spaghetti Carbonara").
+ *
+ * Gezählt wird in veränderlichen Entry-Objekten (nur synchronized); Abfragen sehen ausschließlich
+ * unveränderliche Hit-Kopien mit eingefrorenem Gewicht => Sortieren ohne Data Race.
+ */
+@Component
+public class SuggestionTrie {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionTrie.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Hit> BY_WEIGHT = Comparator
+            .comparingInt((Hit h) -> -h.weight())
+            .thenComparing(Hit::text, String.CASE_INSENSITIVE_ORDER);
+
+    private final RecipeDocumentLoader loader;
+
+    // alles unter "this" synchronisiert; Abfragen lesen nur publicRoot (volatile) + ownedByUser (unveränderliche Listen)
+    private final Map<Long, List<Entry>> contributions = new HashMap<>();
+    private final Map<String, Entry> publicEntries = new HashMap<>();
+    private final Map<String, Map<String, Entry>> ownedEntries = new HashMap<>();
+
+    private volatile Node publicRoot = Node.EMPTY;
+    private final Map<String, List<Hit>> ownedByUser = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Änderungen, die vor/während build() ankommen; werden nach dem Laden nachgespielt (nur synchronized)
+    private final List<RecipeChangedEvent> pending = new ArrayList<>();
+
+    public SuggestionTrie(RecipeDocumentLoader loader) {
+        this.loader = loader;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        // außerhalb des Monitors laden => Commits warten nicht auf die Abfrage, ihre Events landen in pending
+        List<RecipeDocument> docs = loader.loadAll();
+
+        synchronized (this) {
+            contributions.clear();
+            publicEntries.clear();
+            ownedEntries.clear();
+
+            for (RecipeDocument doc : docs) add(doc);
+
+            // seit loadAll() committete Änderungen nachziehen; schon enthaltene sind idempotent
+            for (RecipeChangedEvent event : pending) apply(event, new LinkedHashSet<>());
+            pending.clear();
+
+            rebuildPublicTrie();
+            publishOwned(ownedEntries.keySet());
+            ownedByUser.keySet().retainAll(ownedEntries.keySet());
+            ready = true;
+            log.info("Autocomplete aufgebaut: {} public Vorschläge aus {} Rezepten.", publicEntries.size(), docs.size());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        // ready wird nur synchronized gesetzt => jedes Event wird entweder gesammelt oder direkt angewendet
+        if (!ready) {
+            pending.add(event);
+            return;
+        }
+
+        // nur die betroffenen Nutzer neu veröffentlichen, nicht alle
+        Set<String> touchedUsers = new LinkedHashSet<>();
+        if (apply(event, touchedUsers)) rebuildPublicTrie();
+        publishOwned(touchedUsers);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // usernameOrNull == null => nur public
+    public List<Suggestion> suggest(String prefix, String usernameOrNull, int limit) {
+        String p = normalize(prefix);
+        if (p.isEmpty()) return List.of();
+
+        List<Hit> candidates = new ArrayList<>(Arrays.asList(publicRoot.find(p)));
+
+        if (usernameOrNull != null) {
+            for (Hit h : ownedByUser.getOrDefault(normalize(usernameOrNull), List.of())) {
+                if (h.matches(p)) candidates.add(h);
+            }
+        }
+
+        candidates.sort(BY_WEIGHT);
+
+        Set<String> seen = new LinkedHashSet<>();
+        List<Suggestion> result = new ArrayList<>();
+        for (Hit h : candidates) {
+            if (!seen.add(h.type() + ":" + h.text().toLowerCase(Locale.ROOT))) continue;
+            result.add(new Suggestion(h.text(), h.type()));
+            if (result.size() >= limit) break;
+        }
+        return result;
+    }
+
+    // ===== Pflege der Einträge (nur synchronized aufrufen) =====
+
+    // true => public Einträge betroffen; Besitzer betroffener eigener Einträge landen in touchedUsers
+    private boolean apply(RecipeChangedEvent event, Set<String> touchedUsers) {
+        boolean publicChanged = remove(event.recipeId(), touchedUsers);
+        if (!event.isDeleted()) {
+            add(event.document());
+            if (event.document().isPublic()) publicChanged = true;
+            else touchedUsers.add(normalize(event.document().owner()));
+        }
+        return publicChanged;
+    }
+
+    private void add(RecipeDocument doc) {
+        String owner = doc.isPublic() ? null : normalize(doc.owner());
+        Map<String, Entry> target = owner == null
+                ? publicEntries
+                : ownedEntries.computeIfAbsent(owner, o -> new HashMap<>());
+
+        List<Entry> added = new ArrayList<>();
+        addEntry(target, owner, added, doc.title(), "TITLE");
+        addEntry(target, owner, added, doc.category(), "CATEGORY");
+        for (String name : doc.ingredientNames()) addEntry(target, owner, added, name, "INGREDIENT");
+
+        contributions.put(doc.id(), added);
+    }
+
+    private void addEntry(Map<String, Entry> target, String owner, List<Entry> added, String text, String type) {
+        if (text == null || text.isBlank()) return;
+
+        String display = text.trim();
+        String key = type + ":" + display.toLowerCase(Locale.ROOT);
+        Entry e = target.computeIfAbsent(key, k -> new Entry(display, type, key, owner, target));
+        e.weight++;
+        added.add(e);
+    }
+
+    // true => public Einträge betroffen; Besitzer betroffener eigener Einträge landen in touchedUsers
+    private boolean remove(long recipeId, Set<String> touchedUsers) {
+        List<Entry> old = contributions.remove(recipeId);
+        if (old == null) return false;
+
+        boolean publicChanged = false;
+        for (Entry e : old) {
+            e.weight--;
+            if (e.weight <= 0) e.container.remove(e.key);
+            if (e.owner == null) publicChanged = true;
+            else touchedUsers.add(e.owner);
+        }
+        ownedEntries.values().removeIf(Map::isEmpty);
+        return publicChanged;
+    }
+
+    private void publishOwned(Set<String> users) {
+        for (String user : users) {
+            Map<String, Entry> entries = ownedEntries.get(user);
+            if (entries == null) ownedByUser.remove(user);
+            else ownedByUser.put(user, entries.values().stream().map(Entry::freeze).toList());
+        }
+    }
+
+    private void rebuildPublicTrie() {
+        Builder root = new Builder();
+        for (Entry e : publicEntries.values()) {
+            Hit hit = e.freeze();
+            for (String key : hit.keys()) root.insert(key, 0, hit);
+        }
+        publicRoot = root.freeze();
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    // ===== Datenstrukturen =====
+
+    private static final class Entry {
+        final String text;
+        final String type;
+        final String key;
+        final String owner;                 // null => public
+        final Map<String, Entry> container; // publicEntries oder die Map des Nutzers
+        final String[] keys; // normalisierter Text ab jedem Wortanfang
+        int weight;          // Anzahl Rezepte, die den Vorschlag liefern
+
+        Entry(String text, String type, String key, String owner, Map<String, Entry> container) {
+            this.text = text;
+            this.type = type;
+            this.key = key;
+            this.owner = owner;
+            this.container = container;
+
+            String norm = normalize(text);
+            List<String> starts = new ArrayList<>();
+            for (int i = 0; i < norm.length(); i++) {
+                boolean wordStart = i == 0 || !Character.isLetterOrDigit(norm.charAt(i - 1));
+                if (wordStart && Character.isLetterOrDigit(norm.charAt(i))) starts.add(norm.substring(i));
+            }
+            this.keys = starts.toArray(new String[0]);
+        }
+
+        // nur synchronized aufrufen (liest weight)
+        Hit freeze() {
+            return new Hit(text, type, keys, weight);
+        }
+    }
+
+    // veröffentlichter, unveränderlicher Stand eines Entry
+    private record Hit(String text, String type, String[] keys, int weight) {
+
+        boolean matches(String prefix) {
+            for (String k : keys) {
+                if (k.startsWith(prefix)) return true;
+            }
+            return false;
+        }
+    }
+
+    // unveränderlicher Trie-Knoten: Kinder als sortiertes char[] + Node[], Top-Vorschläge vorberechnet
+    private static final class Node {
+        static final Node EMPTY = new Node(new char[0], new Node[0], new Hit[0]);
+
+        final char[] labels;
+        final Node[] children;
+        final Hit[] top;
+
+        Node(char[] labels, Node[] children, Hit[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+
+        Hit[] find(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                int pos = Arrays.binarySearch(node.labels, prefix.charAt(i));
+                if (pos < 0) return new Hit[0];
+                node = node.children[pos];
+            }
+            return node.top;
+        }
+    }
+
+    private static final class Builder {
+        final TreeMap<Character, Builder> children = new TreeMap<>();
+        final List<Hit> terminals = new ArrayList<>();
+
+        void insert(String key, int index, Hit h) {
+            if (index == key.length()) {
+                terminals.add(h);
+                return;
+            }
+            children.computeIfAbsent(key.charAt(index), c -> new Builder()).insert(key, index + 1, h);
+        }
+
+        Node freeze() {
+            char[] labels = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+
+            // Top-K = beste Einträge aus diesem Knoten und allen Kind-Tops (ein Eintrag kann mehrfach ankommen)
+            Map<Hit, Boolean> pool = new IdentityHashMap<>();
+            for (Hit h : terminals) pool.put(h, Boolean.TRUE);
+
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                labels[i] = child.getKey();
+                nodes[i] = child.getValue().freeze();
+                for (Hit h : nodes[i].top) pool.put(h, Boolean.TRUE);
+                i++;
+            }
+
+            Hit[] top = pool.keySet().stream()
+                    .sorted(BY_WEIGHT)
+                    .limit(MAX_SUGGESTIONS)
+                    .toArray(Hit[]::new);
+
+            return new Node(labels, nodes, top);
+        }
+    }
+}
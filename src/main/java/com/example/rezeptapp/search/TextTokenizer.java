@@ -0,0 +1,21 @@
+package com.example.rezeptapp.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Zerlegt Text in kleingeschriebene Wörter (Buchstaben/Ziffern), gemeinsam genutzt von allen Indizes
+public final class TextTokenizer {
+
+    private TextTokenizer() {}
+
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) return tokens;
+
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+}
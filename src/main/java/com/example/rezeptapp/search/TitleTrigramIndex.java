@@ -0,0 +1,160 @@
+package com.example.rezeptapp.search;
+
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.repository.RecipeRepository;
+import com.example.rezeptapp.repository.RecipeScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tippfehler-tolerante Titelsuche über Zeichen-Trigramme (wie pg_trgm, aber im Speicher, damit es auch auf H2 läuft).
+ * "spagetti" findet "Spaghetti ...", "carbonra" findet "... Carbonara".
+ *
+ * Score = Anteil der Such-Trigramme, die im Titel vorkommen. Kandidaten unter MIN_SCORE fliegen raus.
+ * Die Suche hat ein festes Zeitbudget: ist es aufgebraucht, wird mit den bis dahin gelesenen Trigrammen gerankt
+ * (Schwelle dann relativ zu diesen, nicht zur ganzen Suche).
+ */
+@Component
+public class TitleTrigramIndex extends DocIndex<TitleTrigramIndex.Doc> {
+
+    private static final Logger log = LoggerFactory.getLogger(TitleTrigramIndex.class);
+
+    private static final double MIN_SCORE = 0.5;
+
+    private final RecipeRepository repo;
+    private final long budgetNanos;
+    private final Postings postings = new Postings();
+
+    public TitleTrigramIndex(
+            RecipeRepository repo,
+            @Value("${rezeptapp.search.fuzzy-budget-ms:20}") long budgetMillis
+    ) {
+        this.repo = repo;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+    }
+
+    /**
+     * Ähnlichste sichtbare Titel zuerst (Score absteigend, dann id).
+     */
+    public List<RecipeSummary> search(RecipeScope scope, String username, String category, String search, int limit) {
+        Set<String> query = trigrams(search);
+        if (query.isEmpty()) return List.of();
+
+        long deadline = System.nanoTime() + budgetNanos;
+
+        lock.readLock().lock();
+        try {
+            // nur die Postings der Such-Trigramme einsammeln (kein Durchlauf über alle Titel)
+            int[] touched = new int[16];
+            int count = 0;
+            int processed = 0;
+            for (String trigram : query) {
+                int[] list = postings.get(trigram);
+                if (list != null) {
+                    if (count + list.length > touched.length) {
+                        touched = Arrays.copyOf(touched, Math.max(touched.length * 2, count + list.length));
+                    }
+                    System.arraycopy(list, 0, touched, count, list.length);
+                    count += list.length;
+                }
+                processed++;
+                if (System.nanoTime() > deadline) break;
+            }
+
+            // sortiert => gleiche Ordinals liegen hintereinander, Lauflänge = gemeinsame Trigramme
+            Arrays.sort(touched, 0, count);
+
+            int minShared = Math.max(1, (int) Math.ceil(processed * MIN_SCORE));
+            List<int[]> candidates = new ArrayList<>();
+            for (int i = 0; i < count; ) {
+                int o = touched[i];
+                int shared = 0;
+                while (i < count && touched[i] == o) {
+                    shared++;
+                    i++;
+                }
+                if (shared < minShared) continue;
+
+                Doc doc = docs.get(o);
+                if (doc == null || !DocTable.visible(doc.summary(), scope, username)) continue;
+                if (category != null && !category.equalsIgnoreCase(doc.summary().category())) continue;
+
+                candidates.add(new int[]{o, shared});
+            }
+
+            // mehr gemeinsame Trigramme zuerst; bei Gleichstand kürzerer Titel (weniger "Rauschen"), dann id
+            candidates.sort(Comparator
+                    .comparingInt((int[] c) -> -c[1])
+                    .thenComparingInt(c -> docs.get(c[0]).trigrams().length)
+                    .thenComparingLong(c -> docs.id(c[0])));
+
+            List<RecipeSummary> result = new ArrayList<>();
+            for (int i = 0; i < candidates.size() && i < limit; i++) {
+                result.add(docs.get(candidates.get(i)[0]).summary());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== intern (nur unter writeLock aufrufen) =====
+
+    // gelöschte Slots: doc == null
+    record Doc(RecipeSummary summary, String[] trigrams) {}
+
+    // nur Titel nötig => Summaries statt der vollen Dokumente (keine Beschreibungen/Zutaten laden)
+    @Override
+    List<RecipeDocument> loadAll() {
+        return repo.findAllSummaries().stream()
+                .map(s -> new RecipeDocument(s.id(), s.createdByUsername(), s.title(), null, s.category(), List.of(), s))
+                .toList();
+    }
+
+    @Override
+    void clear() {
+        postings.clear();
+    }
+
+    @Override
+    void index(int ordinal, RecipeDocument doc) {
+        Set<String> grams = trigrams(doc.title());
+        for (String gram : grams) postings.add(gram, ordinal);
+        docs.set(ordinal, new Doc(doc.summary(), grams.toArray(new String[0])));
+    }
+
+    @Override
+    void remove(int ordinal) {
+        Doc doc = docs.get(ordinal);
+        if (doc == null) return;
+
+        for (String gram : doc.trigrams()) postings.remove(gram, ordinal);
+        docs.set(ordinal, null);
+    }
+
+    @Override
+    void built(int count) {
+        log.info("Trigramm-Index aufgebaut: {} Titel, {} Trigramme.", count, postings.keyCount());
+    }
+
+    // pg_trgm-Schema: jedes Wort vorne mit zwei, hinten mit einem Leerzeichen auffüllen
+    static Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : TextTokenizer.tokenize(text)) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+}
@@ -1,11 +1,25 @@
 package com.example.rezeptapp.service;
 
+import com.example.rezeptapp.model.Recipe;
 import com.example.rezeptapp.model.UserAccount;
 import com.example.rezeptapp.repository.UserAccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Service
 public class AuthService {
@@ -13,11 +27,41 @@ public class AuthService {
     private final UserAccountRepository userRepo;
     private final BCryptPasswordEncoder encoder;
 
-    public AuthService(UserAccountRepository userRepo, BCryptPasswordEncoder encoder) {
+    // Token -> Principal: begrenzt + TTL (Sicherheitsnetz für Änderungen an diesem Service vorbei)
+    private final Cache<String, Principal> principals;
+
+    // Rückwärts-Indizes über die gecachten Principals => Invalidierung nur der betroffenen Einträge statt Scan.
+    // Geändert nur in compute(...) pro User (seriell je Schlüssel); Einträge ohne Principal sind harmlos
+    private final Map<Long, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> usersByFavorite = new ConcurrentHashMap<>();
+
+    // zählt jede Invalidierung; ein Laden, das eine Invalidierung überlappt, wird nicht gecacht
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AuthService(
+            UserAccountRepository userRepo,
+            BCryptPasswordEncoder encoder,
+            @Value("${rezeptapp.auth.principal-cache-size:10000}") long cacheSize,
+            @Value("${rezeptapp.auth.principal-ttl:5m}") Duration ttl
+    ) {
         this.userRepo = userRepo;
         this.encoder = encoder;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .executor(Runnable::run)
+                .removalListener((String token, Principal principal, RemovalCause cause) -> {
+                    if (token != null && principal != null && cause != RemovalCause.REPLACED) unindex(token, principal);
+                })
+                .build();
     }
 
+    /**
+     * Angemeldeter User, wie ihn die Controller brauchen: ohne Entity und ohne Lazy-Loading.
+     * favoriteIds ist unveränderlich; nach Favoriten-Änderungen wird der Eintrag verworfen.
+     */
+    public record Principal(Long id, String username, Set<Long> favoriteIds) {}
+
     public void register(String username, String plainPassword) {
         String u = username == null ? "" : username.trim();
         String p = plainPassword == null ? "" : plainPassword;
@@ -51,6 +95,8 @@ public class AuthService {
         user.setAuthToken(token);
         userRepo.save(user);
 
+        // Re-Login ersetzt das alte Token => dessen Principal darf nicht weiterleben
+        evictUser(user.getId());
         return token;
     }
 
@@ -59,10 +105,97 @@ public class AuthService {
             u.setAuthToken(null);
             userRepo.save(u);
         });
+        if (token != null) {
+            invalidations.incrementAndGet();
+            principals.invalidate(token);
+        }
     }
 
+    // Entity inkl. Favoriten (für Schreibzugriffe auf den User); sonst requirePrincipal
     public UserAccount requireUser(String token) {
         return userRepo.findWithFavoritesByAuthToken(token)
                 .orElseThrow(() -> new IllegalArgumentException("unauthorized"));
     }
+
+    /**
+     * Pro Anfrage: Hash-Lookup; nur bei Cache-Miss der Join über die Favoriten. Ungültige Tokens werden nicht gecacht.
+     * Läuft während des Ladens eine Invalidierung (AFTER_COMMIT), kann der gelesene Stand schon veraltet sein:
+     * dann gilt er nur für diese Anfrage und wird wieder verworfen, statt bis zur TTL im Cache zu bleiben.
+     */
+    public Principal requirePrincipal(String token) {
+        if (token == null || token.isBlank()) throw new IllegalArgumentException("unauthorized");
+
+        Principal cached = principals.getIfPresent(token);
+        if (cached != null) return cached;
+
+        long seen = invalidations.get();
+        Principal principal = userRepo.findWithFavoritesByAuthToken(token)
+                .map(AuthService::toPrincipal)
+                .orElseThrow(() -> new IllegalArgumentException("unauthorized"));
+
+        // Reihenfolge: eintragen, indizieren, dann prüfen => eine Invalidierung findet den Eintrag oder wird hier bemerkt
+        principals.put(token, principal);
+        index(token, principal);
+        if (invalidations.get() != seen) principals.asMap().remove(token, principal);
+        return principal;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFavoritesChanged(FavoritesChangedEvent event) {
+        evictUser(event.userId());
+    }
+
+    // gelöschtes Rezept verschwindet auch aus den Favoriten (RecipeService.deleteAllForUser);
+    // nur User mit diesem Favoriten, jeder höchstens einmal (danach ist der Index-Eintrag weg)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (!event.isDeleted()) return;
+
+        Set<Long> users = usersByFavorite.remove(event.recipeId());
+        if (users == null) return;
+        for (Long userId : users) evictUser(userId);
+    }
+
+    private void evictUser(Long userId) {
+        invalidations.incrementAndGet();
+
+        Set<String> tokens = tokensByUser.get(userId);
+        if (tokens != null) principals.invalidateAll(List.copyOf(tokens));
+    }
+
+    private void index(String token, Principal principal) {
+        tokensByUser.compute(principal.id(), (id, tokens) -> {
+            Set<String> set = tokens != null ? tokens : ConcurrentHashMap.newKeySet();
+            set.add(token);
+            for (Long recipeId : principal.favoriteIds()) {
+                usersByFavorite.computeIfAbsent(recipeId, r -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            return set;
+        });
+    }
+
+    // Token noch (wieder) im Cache => Index bleibt; letzter Token des Users weg => auch seine Favoriten austragen
+    private void unindex(String token, Principal principal) {
+        tokensByUser.computeIfPresent(principal.id(), (id, tokens) -> {
+            if (principals.asMap().containsKey(token)) return tokens;
+
+            tokens.remove(token);
+            if (!tokens.isEmpty()) return tokens;
+
+            for (Long recipeId : principal.favoriteIds()) {
+                usersByFavorite.computeIfPresent(recipeId, (r, users) -> {
+                    users.remove(id);
+                    return users.isEmpty() ? null : users;
+                });
+            }
+            return null;
+        });
+    }
+
+    private static Principal toPrincipal(UserAccount user) {
+        Set<Long> favoriteIds = user.getFavorites().stream()
+                .map(Recipe::getId)
+                .collect(Collectors.toUnmodifiableSet());
+        return new Principal(user.getId(), user.getUsername(), favoriteIds);
+    }
 }
\ No newline at end of file
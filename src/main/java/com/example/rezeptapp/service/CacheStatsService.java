@@ -0,0 +1,49 @@
+package com.example.rezeptapp.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Treffer/Fehlzugriffe des Hibernate Second-Level-Cache je Region (zum Dimensionieren in application.conf).
+ * Zählt seit dem Start; Größe = Einträge im Speicher (-1 wenn der Provider das nicht liefert).
+ */
+@Service
+public class CacheStatsService {
+
+    private final Statistics statistics;
+
+    public CacheStatsService(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public record RegionStats(String region, long hits, long misses, long puts, long size, double hitRatio) {}
+
+    public List<RegionStats> regions() {
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(this::region)
+                .toList();
+    }
+
+    private RegionStats region(String name) {
+        CacheRegionStatistics s = statistics.getDomainDataRegionStatistics(name);
+        long hits = s.getHitCount();
+        long misses = s.getMissCount();
+        long lookups = hits + misses;
+
+        return new RegionStats(
+                name,
+                hits,
+                misses,
+                s.getPutCount(),
+                s.getElementCountInMemory(),
+                lookups == 0 ? 0.0 : (double) hits / lookups
+        );
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.rezeptapp.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimaler CSV-Leser (RFC 4180) für den Import: Trenner ",", Felder in "..." dürfen Kommas,
+ * Zeilenumbrüche und "" (= ") enthalten. Liest zeichenweise => die Datei liegt nie komplett im Speicher.
+ */
+final class CsvReader {
+
+    private final Reader in;
+    private int pushedBack = -2;
+    private long line = 1;
+    private long recordLine;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Zeile (1-basiert), in der der zuletzt gelesene Datensatz beginnt
+    long recordLine() {
+        return recordLine;
+    }
+
+    // null => Ende; leere Zeilen werden übersprungen
+    List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') c = read();
+        if (c < 0) return null;
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    // nicht geschlossenes Anführungszeichen am Dateiende: Rest gehört zum Feld
+                    quoted = false;
+                    continue;
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                        c = read();
+                        continue;
+                    }
+                    quoted = false;
+                    c = n;
+                    continue;
+                }
+                field.append((char) c);
+                c = read();
+                continue;
+            }
+
+            if (c < 0 || c == '\n' || c == '\r') {
+                fields.add(field.toString());
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n') pushedBack = n;
+                }
+                return fields;
+            }
+
+            if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = in.read();
+            if (c == '\n') line++;
+        }
+        return c;
+    }
+}
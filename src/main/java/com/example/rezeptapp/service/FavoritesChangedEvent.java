@@ -0,0 +1,7 @@
+package com.example.rezeptapp.service;
+
+/**
+ * Wird von RecipeService nach dem Hinzufügen/Entfernen eines Favoriten veröffentlicht.
+ * AuthService verwirft daraufhin (nach dem Commit) die gecachten Principals des Users.
+ */
+public record FavoritesChangedEvent(long userId) {}
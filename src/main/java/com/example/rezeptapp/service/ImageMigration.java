@@ -0,0 +1,102 @@
+package com.example.rezeptapp.service;
+
+import com.example.rezeptapp.model.Recipe;
+import com.example.rezeptapp.repository.RecipeRepository;
+import com.example.rezeptapp.search.PublicCatalog;
+import com.example.rezeptapp.search.RecipeDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Verschiebt Altbestand (Base64 in image_base64 oder data:-URL in image_url) in den Bild-Store.
+ * Läuft nach dem Start im Hintergrund, ein Rezept pro Transaktion => keine langen Sperren, Abbruch jederzeit möglich.
+ * Noch nicht migrierte Rezepte werden beim ersten Bildabruf direkt migriert (RecipeService.findImageForUser).
+ */
+@Component
+public class ImageMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageMigration.class);
+    private static final int BATCH_SIZE = 20;
+
+    private final RecipeRepository repo;
+    private final ImageService images;
+    private final ApplicationEventPublisher events;
+    private final PublicCatalog publicCatalog;
+    private final TransactionTemplate tx;
+    private final boolean migrateOnStart;
+
+    public ImageMigration(
+            RecipeRepository repo,
+            ImageService images,
+            ApplicationEventPublisher events,
+            PublicCatalog publicCatalog,
+            PlatformTransactionManager txManager,
+            @Value("${rezeptapp.images.migrate-on-start:true}") boolean migrateOnStart
+    ) {
+        this.repo = repo;
+        this.images = images;
+        this.events = events;
+        this.publicCatalog = publicCatalog;
+        this.tx = new TransactionTemplate(txManager);
+        this.migrateOnStart = migrateOnStart;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!migrateOnStart) return;
+        Thread.ofVirtual().name("image-migration").start(this::migrateAll);
+    }
+
+    void migrateAll() {
+        int migrated = 0;
+        int failed = 0;
+        long afterId = 0L;
+
+        // jedes migrierte public Rezept würde sonst den ganzen Katalog neu bauen => einmal am Ende
+        publicCatalog.suspendRebuilds();
+        try {
+            List<Long> ids;
+            while (!(ids = repo.findLegacyImageIds(afterId, Limit.of(BATCH_SIZE))).isEmpty()) {
+                for (Long id : ids) {
+                    try {
+                        if (migrate(id)) migrated++;
+                    } catch (RuntimeException ex) {
+                        // kaputtes Base64 o.ä.: Rezept bleibt wie es ist, Bild wird weiter wie bisher ausgeliefert
+                        failed++;
+                        log.warn("Bild von Rezept {} konnte nicht migriert werden: {}", id, ex.getMessage());
+                    }
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+        } finally {
+            publicCatalog.resumeRebuilds();
+        }
+
+        if (migrated > 0 || failed > 0) {
+            log.info("Bild-Migration fertig: {} migriert, {} fehlgeschlagen.", migrated, failed);
+        }
+    }
+
+    // true => Rezept hatte ein Inline-Bild und hält jetzt nur noch den Verweis
+    public boolean migrate(Long id) {
+        Boolean changed = tx.execute(status -> {
+            Recipe recipe = repo.findById(id).orElse(null);
+            if (recipe == null || !images.moveInlineImage(recipe)) return false;
+
+            // Detail (imageUrl) ändert sich => Katalog/Indizes nach dem Commit aktualisieren
+            events.publishEvent(RecipeChangedEvent.saved(RecipeDocument.of(recipe)));
+            return true;
+        });
+        return Boolean.TRUE.equals(changed);
+    }
+}
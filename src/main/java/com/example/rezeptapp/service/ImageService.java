@@ -0,0 +1,177 @@
+package com.example.rezeptapp.service;
+
+import com.example.rezeptapp.model.Recipe;
+import com.example.rezeptapp.model.RecipeImage;
+import com.example.rezeptapp.repository.RecipeImageRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Inhaltsadressierter Bild-Store (Tabelle recipe_images, Schlüssel = SHA-256 der Bytes).
+ * Bewusst in der Datenbank statt im Dateisystem: die Platte auf Render ist flüchtig.
+ */
+@Service
+public class ImageService {
+
+    private static final String DEFAULT_CONTENT_TYPE = "image/jpeg";
+    private static final int CHUNK_BYTES = 8 * 1024;
+
+    private final RecipeImageRepository images;
+    private final ApplicationEventPublisher events;
+
+    public ImageService(RecipeImageRepository images, ApplicationEventPublisher events) {
+        this.images = images;
+        this.events = events;
+    }
+
+    public record StoredImage(String sha256, String contentType, byte[] bytes) {}
+
+    // akzeptiert "data:image/png;base64,..." oder reines Base64, gibt den SHA-256 zurück
+    @Transactional
+    public String storeBase64(String value) {
+        String contentType = DEFAULT_CONTENT_TYPE;
+        String data = value.trim();
+
+        if (data.startsWith("data:")) {
+            int comma = data.indexOf(',');
+            if (comma < 0) throw new IllegalArgumentException("Bild ist ungültig.");
+
+            String meta = data.substring("data:".length(), comma);
+            int semi = meta.indexOf(';');
+            String type = semi >= 0 ? meta.substring(0, semi) : meta;
+            if (!type.isBlank()) contentType = type.trim();
+
+            data = data.substring(comma + 1);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Bild ist ungültig.");
+        }
+        return store(contentType, bytes);
+    }
+
+    // gleiche Bytes => gleicher Schlüssel => nur einmal gespeichert
+    @Transactional
+    public String store(String contentType, byte[] bytes) {
+        if (bytes == null || bytes.length == 0) throw new IllegalArgumentException("Bild ist leer.");
+        if (bytes.length > RecipeImage.MAX_BYTES) throw tooLarge();
+
+        MessageDigest digest = sha256Digest();
+        digest.update(bytes);
+        return save(imageType(contentType), bytes, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Upload (Multipart) blockweise lesen: SHA-256 wird nebenbei berechnet, Abbruch sobald MAX_BYTES überschritten ist.
+     * Kein Base64/String dazwischen; der Puffer wächst höchstens bis MAX_BYTES (expectedSize < 0 => unbekannt).
+     */
+    @Transactional
+    public String store(String contentType, InputStream in, long expectedSize) {
+        String type = imageType(contentType);
+        if (expectedSize > RecipeImage.MAX_BYTES) throw tooLarge();
+
+        MessageDigest digest = sha256Digest();
+        byte[] buf = new byte[Math.clamp(expectedSize > 0 ? expectedSize : CHUNK_BYTES, 1, RecipeImage.MAX_BYTES)];
+        int size = 0;
+
+        try {
+            while (true) {
+                if (size == buf.length) {
+                    if (size == RecipeImage.MAX_BYTES) {
+                        if (in.read() < 0) break;
+                        throw tooLarge();
+                    }
+                    buf = Arrays.copyOf(buf, (int) Math.min(RecipeImage.MAX_BYTES, size * 2L));
+                }
+
+                int n = in.read(buf, size, Math.min(CHUNK_BYTES, buf.length - size));
+                if (n < 0) break;
+
+                digest.update(buf, size, n);
+                size += n;
+            }
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Bild-Upload abgebrochen.");
+        }
+
+        if (size == 0) throw new IllegalArgumentException("Bild ist leer.");
+        byte[] bytes = size == buf.length ? buf : Arrays.copyOf(buf, size);
+        return save(type, bytes, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StoredImage> load(String sha256) {
+        return images.findById(sha256)
+                .map(img -> new StoredImage(img.getSha256(), img.getContentType(), img.getData()));
+    }
+
+    /**
+     * Base64 aus imageBase64 bzw. einer data:-URL in imageUrl in den Store verschieben.
+     * Danach hält das Rezept nur noch imageSha256. true => Rezept wurde geändert.
+     */
+    @Transactional
+    public boolean moveInlineImage(Recipe recipe) {
+        boolean changed = false;
+
+        String base64 = recipe.getImageBase64();
+        if (base64 != null) {
+            if (!base64.isBlank()) recipe.setImageSha256(storeBase64(base64));
+            recipe.setImageBase64(null);
+            changed = true;
+        }
+
+        String url = recipe.getImageUrl();
+        if (isDataUrl(url)) {
+            String sha256 = storeBase64(url);
+            if (recipe.getImageSha256() == null) recipe.setImageSha256(sha256);
+            recipe.setImageUrl(null);
+            changed = true;
+        }
+        return changed;
+    }
+
+    public static boolean isDataUrl(String url) {
+        return url != null && url.trim().startsWith("data:");
+    }
+
+    // existsById + save wäre nicht atomar: zwei gleiche Uploads gleichzeitig => PK-Verletzung (500)
+    private String save(String type, byte[] bytes, String sha256) {
+        if (images.insertIfAbsent(sha256, type, bytes.length, bytes, Instant.now()) > 0) {
+            // Thumbnails erst nach dem Commit und im Hintergrund (ThumbnailService)
+            events.publishEvent(new ImageStoredEvent(sha256));
+        }
+        return sha256;
+    }
+
+    private static String imageType(String contentType) {
+        String type = contentType == null || contentType.isBlank() ? DEFAULT_CONTENT_TYPE : contentType.trim();
+        if (!type.startsWith("image/")) throw new IllegalArgumentException("Bild ist ungültig.");
+        return type;
+    }
+
+    private static IllegalArgumentException tooLarge() {
+        return new IllegalArgumentException("Bild ist zu groß (max. " + RecipeImage.MAX_BYTES / (1024 * 1024) + " MB).");
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
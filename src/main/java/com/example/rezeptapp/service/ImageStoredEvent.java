@@ -0,0 +1,7 @@
+package com.example.rezeptapp.service;
+
+/**
+ * Wird von ImageService veröffentlicht, wenn ein neues Bild (neuer SHA-256) gespeichert wurde.
+ * ThumbnailService erzeugt daraufhin nach dem Commit die verkleinerten Fassungen.
+ */
+public record ImageStoredEvent(String sha256) {}
@@ -0,0 +1,12 @@
+package com.example.rezeptapp.service;
+
+/**
+ * Ein In-Memory-Index wird (noch) aufgebaut, z.B. direkt nach dem Start.
+ * GlobalExceptionHandler macht daraus 503 mit Retry-After statt 500.
+ */
+public class IndexNotReadyException extends RuntimeException {
+
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -12,8 +12,10 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
@@ -61,15 +63,24 @@ public class MealPlanService {
     }
 
     private void normalizeRecipes(List<MealPlanEntry> entries) {
+        Set<Long> ids = new HashSet<>();
         for (MealPlanEntry e : entries) {
             if (e.getSlot() == null) throw new IllegalArgumentException("slot darf nicht null sein");
             if (e.getDay() == null) throw new IllegalArgumentException("day darf nicht null sein");
 
+            if (e.getRecipe() != null && e.getRecipe().getId() != null) ids.add(e.getRecipe().getId());
+        }
+
+        // alle Rezepte der Woche auf einmal: aus dem Second-Level-Cache, fehlende in einem Statement
+        Map<Long, Recipe> byId = new HashMap<>();
+        for (Recipe r : recipeRepo.findAllByIdCached(ids)) byId.put(r.getId(), r);
+
+        for (MealPlanEntry e : entries) {
             // recipe optional: null = Slot leer
             if (e.getRecipe() != null && e.getRecipe().getId() != null) {
                 Long rid = e.getRecipe().getId();
-                Recipe r = recipeRepo.findById(rid)
-                        .orElseThrow(() -> new IllegalArgumentException("Recipe nicht gefunden: " + rid));
+                Recipe r = byId.get(rid);
+                if (r == null) throw new IllegalArgumentException("Recipe nicht gefunden: " + rid);
                 e.setRecipe(r);
             } else {
                 e.setRecipe(null);
@@ -1,8 +1,8 @@
 package com.example.rezeptapp.service;
 
-import com.example.rezeptapp.model.Ingredient;
+import com.example.rezeptapp.dto.IngredientDto;
+import com.example.rezeptapp.dto.RecipeDetail;
 import com.example.rezeptapp.model.Nutrition;
-import com.example.rezeptapp.model.Recipe;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.*;
 import org.springframework.stereotype.Service;
@@ -35,7 +35,7 @@ public class PdfService {
     private static final Locale LOCALE_DE = Locale.GERMANY;
     private static final DateTimeFormatter DT_DE = DateTimeFormatter.ofPattern("dd.MM.yyyy, HH:mm", LOCALE_DE);
 
-    public byte[] createRecipePdf(Recipe recipe) {
+    public byte[] createRecipePdf(RecipeDetail recipe) {
         try {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
 
@@ -58,9 +58,9 @@ public class PdfService {
             doc.add(ingredientsTable(recipe));
 
             // Nährwerte
-            if (recipe.getNutrition() != null) {
+            if (recipe.nutrition() != null) {
                 doc.add(sectionTitle("Nährwerte"));
-                doc.add(nutritionCards(recipe.getNutrition()));
+                doc.add(nutritionCards(recipe.nutrition()));
             }
 
             // Zubereitung IMMER auf neuer Seite starten
@@ -78,7 +78,7 @@ public class PdfService {
     }
 
     // ===== Titel-Box inkl. Header-Zeile + Logo =====
-    private Element buildTitleBoxWithHeader(Recipe recipe) {
+    private Element buildTitleBoxWithHeader(RecipeDetail recipe) {
         PdfPTable outer = new PdfPTable(1);
         outer.setWidthPercentage(100);
 
@@ -113,14 +113,14 @@ public class PdfService {
         head.setSpacingAfter(10);
 
         // Titel + PDF-Erstellungsdatum + Beschreibung
-        Paragraph title = new Paragraph(safe(recipe.getTitle(), "Rezept"), TITLE);
+        Paragraph title = new Paragraph(safe(recipe.title(), "Rezept"), TITLE);
         title.setSpacingAfter(6);
 
         // Wichtig: Das ist jetzt das PDF-Erstellungsdatum (nicht recipe.createdAt)
         Paragraph createdP = new Paragraph("PDF erstellt am " + formatNowDe(), SUB);
         createdP.setSpacingAfter(8);
 
-        String descTxt = safe(recipe.getDescription(), "").trim();
+        String descTxt = safe(recipe.description(), "").trim();
         Paragraph desc = new Paragraph(descTxt, TEXT);
         desc.setLeading(0, 1.25f);
 
@@ -150,14 +150,14 @@ public class PdfService {
     }
 
     // ===== Meta-Karten =====
-    private Element metaBlock(Recipe recipe) {
+    private Element metaBlock(RecipeDetail recipe) {
         PdfPTable meta = new PdfPTable(3);
         meta.setWidthPercentage(100);
         meta.setSpacingAfter(14);
 
-        meta.addCell(metaCell("Kategorie", safe(recipe.getCategory(), "—")));
-        meta.addCell(metaCell("Portionen", recipe.getServings() != null ? recipe.getServings().toString() : "—"));
-        meta.addCell(metaCell("Zeit", recipe.getPrepMinutes() != null ? recipe.getPrepMinutes() + " min" : "—"));
+        meta.addCell(metaCell("Kategorie", safe(recipe.category(), "—")));
+        meta.addCell(metaCell("Portionen", recipe.servings() != null ? recipe.servings().toString() : "—"));
+        meta.addCell(metaCell("Zeit", recipe.prepMinutes() != null ? recipe.prepMinutes() + " min" : "—"));
 
         return meta;
     }
@@ -184,7 +184,7 @@ public class PdfService {
     }
 
     // ===== Zutaten-Tabelle =====
-    private Element ingredientsTable(Recipe recipe) {
+    private Element ingredientsTable(RecipeDetail recipe) {
         PdfPTable table = new PdfPTable(new float[]{2.6f, 1f, 1f});
         table.setWidthPercentage(100);
         table.setSpacingAfter(12);
@@ -193,7 +193,7 @@ public class PdfService {
         table.addCell(th("Menge"));
         table.addCell(th("Einheit"));
 
-        if (recipe.getIngredients() == null || recipe.getIngredients().isEmpty()) {
+        if (recipe.ingredients() == null || recipe.ingredients().isEmpty()) {
             PdfPCell c = new PdfPCell(new Phrase("Keine Zutaten hinterlegt.", TEXT));
             c.setColspan(3);
             c.setPadding(10);
@@ -202,10 +202,10 @@ public class PdfService {
             return table;
         }
 
-        for (Ingredient ing : recipe.getIngredients()) {
-            table.addCell(td(safe(ing.getName(), "—")));
-            table.addCell(td(safe(ing.getAmount(), "—")));
-            table.addCell(td(safe(ing.getUnit(), "—")));
+        for (IngredientDto ing : recipe.ingredients()) {
+            table.addCell(td(safe(ing.name(), "—")));
+            table.addCell(td(safe(ing.amount(), "—")));
+            table.addCell(td(safe(ing.unit(), "—")));
         }
 
         return table;
@@ -242,8 +242,8 @@ public class PdfService {
     }
 
     // ===== Zubereitung =====
-    private Element instructionsBlock(Recipe recipe) {
-        String instr = safe(recipe.getInstructions(), safe(recipe.getDescription(), "—"));
+    private Element instructionsBlock(RecipeDetail recipe) {
+        String instr = safe(recipe.instructions(), safe(recipe.description(), "—"));
         Paragraph p = new Paragraph(instr, TEXT);
         p.setLeading(0, 1.4f);
         return p;
@@ -0,0 +1,23 @@
+package com.example.rezeptapp.service;
+
+import com.example.rezeptapp.search.RecipeDocument;
+
+/**
+ * Wird von RecipeService nach create/update/delete veröffentlicht.
+ * Listener reagieren erst nach dem Commit (@TransactionalEventListener AFTER_COMMIT).
+ * document == null => Rezept wurde gelöscht.
+ */
+public record RecipeChangedEvent(long recipeId, RecipeDocument document) {
+
+    public static RecipeChangedEvent saved(RecipeDocument document) {
+        return new RecipeChangedEvent(document.id(), document);
+    }
+
+    public static RecipeChangedEvent deleted(long recipeId) {
+        return new RecipeChangedEvent(recipeId, null);
+    }
+
+    public boolean isDeleted() {
+        return document == null;
+    }
+}
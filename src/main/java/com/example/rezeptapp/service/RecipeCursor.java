@@ -0,0 +1,72 @@
+package com.example.rezeptapp.service;
+
+import com.example.rezeptapp.dto.RecipeSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaker Cursor für die Pagination der Rezeptlisten.
+ * Normalfall Keyset über (Sichtbarkeits-Rang, id): Rang 0 = public (Seeder), Rang 1 = eigene Rezepte.
+ * Relevanz-sortierte Suchtreffer (Volltext) haben keinen stabilen Key => dort zählt offset.
+ */
+public record RecipeCursor(int rank, long id, int offset) {
+
+    public static final int PUBLIC_RANK = 0;
+    public static final int OWNED_RANK = 1;
+
+    // Anfang der Liste: alles "nach" public/0
+    public static final RecipeCursor START = new RecipeCursor(PUBLIC_RANK, 0L, 0);
+
+    public static RecipeCursor after(RecipeSummary recipe) {
+        int rank = recipe.createdByUsername() == null ? PUBLIC_RANK : OWNED_RANK;
+        return new RecipeCursor(rank, recipe.id(), 0);
+    }
+
+    public static RecipeCursor atOffset(int offset) {
+        return new RecipeCursor(PUBLIC_RANK, 0L, offset);
+    }
+
+    /**
+     * Offset-Cursor gehören zu Relevanz-/Nährwert-Sortierung, Keyset-Cursor zu RecipeSort.ID.
+     * Ein Cursor aus der jeweils anderen Sortierung würde still von vorn beginnen => 400.
+     */
+    public RecipeCursor requireMode(boolean offsetMode) {
+        if (!equals(START) && (offset > 0) != offsetMode) {
+            throw new IllegalArgumentException("cursor passt nicht zur Sortierung");
+        }
+        return this;
+    }
+
+    public String encode() {
+        String raw = offset > 0 ? "o:" + offset : rank + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecipeCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return START;
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            String head = raw.substring(0, sep);
+            String tail = raw.substring(sep + 1);
+
+            if (head.equals("o")) {
+                int offset = Integer.parseInt(tail);
+                if (offset < 0) throw new IllegalArgumentException("offset");
+                return atOffset(offset);
+            }
+
+            int rank = Integer.parseInt(head);
+            long id = Long.parseLong(tail);
+
+            if (rank != PUBLIC_RANK && rank != OWNED_RANK) throw new IllegalArgumentException("rank");
+            if (id < 0) throw new IllegalArgumentException("id");
+
+            return new RecipeCursor(rank, id, 0);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("cursor ist ungültig");
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.rezeptapp.service;
+
+import com.example.rezeptapp.model.Ingredient;
+import com.example.rezeptapp.model.Nutrition;
+import com.example.rezeptapp.model.Recipe;
+import com.example.rezeptapp.search.RecipeDocument;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Massenimport eigener Rezepte (Partner-Kataloge) aus NDJSON oder CSV.
+ * Die Eingabe wird gestreamt, jede Zeile/jeder Datensatz sofort geprüft; gültige Rezepte werden in Blöcken
+ * (rezeptapp.import.batch-size) per JDBC-Batch geschrieben, ein Block = eine Transaktion.
+ * Fehler betreffen nur die eigene Zeile (bzw. beim Schreiben den eigenen Block), der Rest wird trotzdem importiert.
+ *
+ * NDJSON: ein Rezept-JSON pro Zeile, Aufbau wie bei POST /rezeptapp.
+ * CSV: Kopfzeile mit title, description, instructions, ingredients und optional category, prepMinutes, servings,
+ * caloriesKcal, proteinG, fatG, carbsG, imageUrl. ingredients = "Name|Menge|Einheit;Name|Menge|Einheit".
+ */
+@Service
+public class RecipeImportService {
+
+    // mehr Fehler werden nur gezählt, nicht mehr einzeln gemeldet
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // passend zu allocationSize der @SequenceGenerator von Recipe/Ingredient
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String INSERT_RECIPE = """
+        INSERT INTO recipes (id, title, description, instructions, category, image_url, image_sha256,
+                             prep_minutes, servings, calories_kcal, protein_g, fat_g, carbs_g,
+                             created_by_username, created_at, updated_at)
+        VALUES (:id, :title, :description, :instructions, :category, :imageUrl, :imageSha256,
+                :prepMinutes, :servings, :caloriesKcal, :proteinG, :fatG, :carbsG,
+                :owner, :now, :now)
+        """;
+
+    private static final String INSERT_INGREDIENT = """
+        INSERT INTO ingredients (id, name, amount, unit, recipe_id) VALUES (:id, :name, :amount, :unit, :recipeId)
+        """;
+
+    public enum Format { NDJSON, CSV }
+
+    public record LineError(long line, String message) {}
+
+    public record ImportResult(int imported, int failed, List<LineError> errors) {}
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ObjectReader recipeReader;
+    private final Validator validator;
+    private final ImageService images;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    public RecipeImportService(
+            NamedParameterJdbcTemplate jdbc,
+            ObjectMapper objectMapper,
+            Validator validator,
+            ImageService images,
+            ApplicationEventPublisher events,
+            PlatformTransactionManager txManager,
+            @Value("${rezeptapp.import.batch-size:500}") int batchSize
+    ) {
+        if (batchSize < 1) throw new IllegalArgumentException("rezeptapp.import.batch-size muss >= 1 sein");
+        this.jdbc = jdbc;
+        this.recipeReader = objectMapper.readerFor(Recipe.class);
+        this.validator = validator;
+        this.images = images;
+        this.events = events;
+        this.tx = new TransactionTemplate(txManager);
+        this.batchSize = batchSize;
+    }
+
+    // eine Zeile der Eingabe: entweder ein geprüftes Rezept oder eine Fehlermeldung
+    private record Entry(long line, Recipe recipe, String error) {}
+
+    private interface Source {
+        Entry next() throws IOException;
+    }
+
+    public ImportResult importFor(String username, Format format, Reader input) {
+        String owner = username == null ? "" : username.trim();
+        if (owner.isBlank()) throw new IllegalArgumentException("unauthorized");
+
+        BufferedReader reader = input instanceof BufferedReader b ? b : new BufferedReader(input);
+        Progress progress = new Progress();
+        List<Entry> chunk = new ArrayList<>(batchSize);
+
+        try {
+            Source source = format == Format.CSV ? csv(reader) : ndjson(reader);
+            Entry entry;
+            while ((entry = source.next()) != null) {
+                if (entry.error() != null) {
+                    progress.fail(entry.line(), entry.error());
+                    continue;
+                }
+                chunk.add(entry);
+                if (chunk.size() == batchSize) {
+                    write(owner, chunk, progress);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException ex) {
+            // bis dahin geschriebene Blöcke bleiben gespeichert
+            throw new IllegalArgumentException("Import abgebrochen: Eingabe konnte nicht gelesen werden.");
+        }
+
+        if (!chunk.isEmpty()) write(owner, chunk, progress);
+        return new ImportResult(progress.imported, progress.failed, List.copyOf(progress.errors));
+    }
+
+    // ===== Eingabeformate =====
+
+    private Source ndjson(BufferedReader reader) {
+        long[] lineNo = {0};
+        return () -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo[0]++;
+                if (line.isBlank()) continue;
+
+                Recipe recipe;
+                try {
+                    recipe = recipeReader.readValue(line);
+                } catch (JsonProcessingException ex) {
+                    return new Entry(lineNo[0], null, "Ungültiges JSON: " + ex.getOriginalMessage());
+                }
+                return checked(lineNo[0], recipe);
+            }
+            return null;
+        };
+    }
+
+    private Source csv(BufferedReader reader) throws IOException {
+        CsvReader records = new CsvReader(reader);
+        List<String> header = records.next();
+        if (header == null) return () -> null;
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("title", "description", "instructions", "ingredients")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV-Kopfzeile: Spalte " + required + " fehlt.");
+            }
+        }
+
+        return () -> {
+            List<String> record = records.next();
+            if (record == null) return null;
+
+            long line = records.recordLine();
+            try {
+                return checked(line, fromCsv(record, columns));
+            } catch (IllegalArgumentException ex) {
+                return new Entry(line, null, ex.getMessage());
+            }
+        };
+    }
+
+    private static Recipe fromCsv(List<String> record, Map<String, Integer> columns) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle(text(record, columns, "title"));
+        recipe.setDescription(text(record, columns, "description"));
+        recipe.setInstructions(text(record, columns, "instructions"));
+        recipe.setCategory(text(record, columns, "category"));
+        recipe.setImageUrl(text(record, columns, "imageUrl"));
+        recipe.setPrepMinutes(integer(record, columns, "prepMinutes"));
+        recipe.setServings(integer(record, columns, "servings"));
+
+        Nutrition nutrition = new Nutrition();
+        nutrition.setCaloriesKcal(integer(record, columns, "caloriesKcal"));
+        nutrition.setProteinG(decimal(record, columns, "proteinG"));
+        nutrition.setFatG(decimal(record, columns, "fatG"));
+        nutrition.setCarbsG(decimal(record, columns, "carbsG"));
+        recipe.setNutrition(nutrition);
+
+        List<Ingredient> ingredients = new ArrayList<>();
+        String list = text(record, columns, "ingredients");
+        if (list != null) {
+            for (String item : list.split(";")) {
+                if (item.isBlank()) continue;
+                String[] parts = item.split("\\|", 3);
+                ingredients.add(new Ingredient(
+                        parts[0].trim(),
+                        parts.length > 1 && !parts[1].isBlank() ? parts[1].trim() : null,
+                        parts.length > 2 && !parts[2].isBlank() ? parts[2].trim() : null
+                ));
+            }
+        }
+        recipe.setIngredients(ingredients);
+        return recipe;
+    }
+
+    private static String text(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+        if (index == null || index >= record.size()) return null;
+
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer integer(List<String> record, Map<String, Integer> columns, String name) {
+        String value = text(record, columns, name);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Spalte " + name + ": keine ganze Zahl (" + value + ")");
+        }
+    }
+
+    private static Double decimal(List<String> record, Map<String, Integer> columns, String name) {
+        String value = text(record, columns, name);
+        try {
+            return value == null ? null : Double.valueOf(value.replace(',', '.'));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Spalte " + name + ": keine Zahl (" + value + ")");
+        }
+    }
+
+    /**
+     * Gleiche Regeln wie POST /rezeptapp: Bean Validation (@Valid) + RecipeService.requireComplete.
+     * Inline-Bilder (Base64/data:-URL) werden hier schon dekodiert und in den Bild-Store verschoben:
+     * ein kaputtes Bild ist ein Fehler dieser Zeile, nicht des ganzen Blocks.
+     */
+    private Entry checked(long line, Recipe recipe) {
+        if (recipe == null) return new Entry(line, null, "Leeres Rezept.");
+
+        try {
+            RecipeService.requireComplete(recipe);
+        } catch (IllegalArgumentException ex) {
+            return new Entry(line, null, ex.getMessage());
+        }
+
+        String violation = validator.validate(recipe).stream()
+                .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .findFirst()
+                .orElse(null);
+        if (violation != null) return new Entry(line, null, violation);
+
+        try {
+            images.moveInlineImage(recipe);
+        } catch (IllegalArgumentException ex) {
+            return new Entry(line, null, ex.getMessage());
+        }
+        return new Entry(line, recipe, null);
+    }
+
+    // ===== Schreiben =====
+
+    private void write(String owner, List<Entry> chunk, Progress progress) {
+        try {
+            tx.executeWithoutResult(status -> insert(owner, chunk));
+            progress.imported += chunk.size();
+        } catch (RuntimeException ex) {
+            String reason = ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+            for (Entry entry : chunk) progress.fail(entry.line(), "Nicht gespeichert: " + reason);
+        }
+    }
+
+    // zwei Batches pro Block: erst alle Rezepte, dann alle Zutaten
+    private void insert(String owner, List<Entry> chunk) {
+        OffsetDateTime now = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+
+        // ids aus denselben Sequenzen wie Hibernate (Recipe.id/Ingredient.id) => ein nextval je 50 ids
+        SequenceIds recipeIds = new SequenceIds("recipes_seq");
+        SequenceIds ingredientIds = new SequenceIds("ingredients_seq");
+
+        SqlParameterSource[] recipeRows = new SqlParameterSource[chunk.size()];
+        List<SqlParameterSource> ingredientRows = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Recipe recipe = chunk.get(i).recipe();
+            recipe.setCreatedByUsername(owner);
+            recipe.setId(recipeIds.next());
+            recipeRows[i] = recipeParams(recipe, now);
+
+            for (Ingredient ing : recipe.getIngredients()) {
+                ingredientRows.add(new MapSqlParameterSource()
+                        .addValue("id", ingredientIds.next(), Types.BIGINT)
+                        .addValue("name", ing.getName().trim(), Types.VARCHAR)
+                        .addValue("amount", ing.getAmount(), Types.VARCHAR)
+                        .addValue("unit", ing.getUnit(), Types.VARCHAR)
+                        .addValue("recipeId", recipe.getId(), Types.BIGINT));
+            }
+        }
+        jdbc.batchUpdate(INSERT_RECIPE, recipeRows);
+        jdbc.batchUpdate(INSERT_INGREDIENT, ingredientRows.toArray(SqlParameterSource[]::new));
+
+        // Indizes/Vorschläge nach dem Commit aktualisieren (wie bei createForUser)
+        for (Entry entry : chunk) {
+            events.publishEvent(RecipeChangedEvent.saved(RecipeDocument.of(entry.recipe())));
+        }
+    }
+
+    private static SqlParameterSource recipeParams(Recipe recipe, OffsetDateTime now) {
+        Nutrition n = recipe.getNutrition();
+        return new MapSqlParameterSource()
+                .addValue("id", recipe.getId(), Types.BIGINT)
+                .addValue("title", recipe.getTitle().trim(), Types.VARCHAR)
+                .addValue("description", recipe.getDescription().trim(), Types.VARCHAR)
+                .addValue("instructions", recipe.getInstructions().trim(), Types.VARCHAR)
+                .addValue("category", recipe.getCategory(), Types.VARCHAR)
+                .addValue("imageUrl", recipe.getImageUrl(), Types.VARCHAR)
+                .addValue("imageSha256", recipe.getImageSha256(), Types.VARCHAR)
+                .addValue("prepMinutes", recipe.getPrepMinutes(), Types.INTEGER)
+                .addValue("servings", recipe.getServings(), Types.INTEGER)
+                .addValue("caloriesKcal", n.getCaloriesKcal(), Types.INTEGER)
+                .addValue("proteinG", n.getProteinG(), Types.DOUBLE)
+                .addValue("fatG", n.getFatG(), Types.DOUBLE)
+                .addValue("carbsG", n.getCarbsG(), Types.DOUBLE)
+                .addValue("owner", recipe.getCreatedByUsername(), Types.VARCHAR)
+                .addValue("now", now, Types.TIMESTAMP_WITH_TIMEZONE);
+    }
+
+    /**
+     * Wie Hibernates "pooled"-Optimizer: nextval = v gehört exklusiv dem Aufrufer und steht für die ids (v - 49 .. v).
+     * v < 50 (frische Sequenz) überspringen, den Bereich ab 1 nutzt Hibernate selbst.
+     */
+    private final class SequenceIds {
+        private final String sql;
+        private long next = 1;
+        private long last = 0;
+
+        SequenceIds(String sequence) {
+            this.sql = "SELECT nextval('" + sequence + "')";
+        }
+
+        long next() {
+            if (next > last) {
+                long hi = nextval();
+                if (hi < ID_BLOCK_SIZE) hi = nextval();
+                next = hi - ID_BLOCK_SIZE + 1;
+                last = hi;
+            }
+            return next++;
+        }
+
+        private long nextval() {
+            Long value = jdbc.getJdbcTemplate().queryForObject(sql, Long.class);
+            if (value == null) throw new IllegalStateException(sql + " lieferte keinen Wert");
+            return value;
+        }
+    }
+
+    private static final class Progress {
+        int imported;
+        int failed;
+        final List<LineError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new LineError(line, message));
+        }
+    }
+}
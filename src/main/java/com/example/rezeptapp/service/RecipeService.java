@@ -1,66 +1,386 @@
 package com.example.rezeptapp.service;
 
+import com.example.rezeptapp.dto.IngredientMatch;
+import com.example.rezeptapp.dto.RecipeDetail;
+import com.example.rezeptapp.dto.RecipeFacets;
+import com.example.rezeptapp.dto.RecipeSummary;
+import com.example.rezeptapp.dto.Suggestion;
 import com.example.rezeptapp.model.Ingredient;
 import com.example.rezeptapp.model.Recipe;
 import com.example.rezeptapp.model.UserAccount;
+import com.example.rezeptapp.repository.RecipeFilter;
+import com.example.rezeptapp.repository.RecipeImageRow;
+import com.example.rezeptapp.repository.RecipeOwner;
+import com.example.rezeptapp.repository.RecipeQueryRepository;
 import com.example.rezeptapp.repository.RecipeRepository;
+import com.example.rezeptapp.repository.RecipeScope;
+import com.example.rezeptapp.repository.RecipeSort;
+import com.example.rezeptapp.repository.RecipeStamp;
 import com.example.rezeptapp.repository.UserAccountRepository;
+import com.example.rezeptapp.search.IngredientIndex;
+import com.example.rezeptapp.search.PublicCatalog;
+import com.example.rezeptapp.search.RecipeDocument;
+import com.example.rezeptapp.search.SuggestionTrie;
+import com.example.rezeptapp.search.TitleTrigramIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class RecipeService {
 
     private static final String MINE_VALUE = "__mine__";
+    private static final int MAX_PAGE_SIZE = 100;
+    // Streaming liest seitenweise, die Verbindung ist zwischen den Seiten frei (langsame Clients halten keine)
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final int DEFAULT_FUZZY_RESULTS = 20;
+    private static final int MAX_HAVE_INGREDIENTS = 50;
+    private static final int MAX_BULK_DELETE = 1000;
 
     private final RecipeRepository repo;
     private final UserAccountRepository userRepo;
-
-    public RecipeService(RecipeRepository repo, UserAccountRepository userRepo) {
+    private final RecipeQueryRepository queries;
+    private final PublicCatalog publicCatalog;
+    private final TitleTrigramIndex trigramIndex;
+    private final SuggestionTrie suggestions;
+    private final IngredientIndex ingredientIndex;
+    private final ImageService images;
+    private final ImageMigration imageMigration;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public RecipeService(
+            RecipeRepository repo,
+            UserAccountRepository userRepo,
+            RecipeQueryRepository queries,
+            PublicCatalog publicCatalog,
+            TitleTrigramIndex trigramIndex,
+            SuggestionTrie suggestions,
+            IngredientIndex ingredientIndex,
+            ImageService images,
+            ImageMigration imageMigration,
+            ApplicationEventPublisher events,
+            PlatformTransactionManager txManager,
+            ObjectMapper objectMapper,
+            Validator validator
+    ) {
         this.repo = repo;
         this.userRepo = userRepo;
+        this.queries = queries;
+        this.publicCatalog = publicCatalog;
+        this.trigramIndex = trigramIndex;
+        this.suggestions = suggestions;
+        this.ingredientIndex = ingredientIndex;
+        this.images = images;
+        this.imageMigration = imageMigration;
+        this.events = events;
+
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public record RecipePage(List<RecipeSummary> items, String next) {}
+
+    public record FacetedPage(List<RecipeSummary> items, String next, RecipeFacets facets) {}
+
+    public List<RecipeSummary> findAll(String usernameOrNull, String search, String category) {
+        return findAllFiltered(usernameOrNull, RecipeFilter.of(search, category), null, null).items();
+    }
+
+    public RecipePage findAllPage(String usernameOrNull, String search, String category, String cursor, Integer limit) {
+        return findAllFiltered(usernameOrNull, RecipeFilter.of(search, category), cursor, limit);
     }
 
-    public List<Recipe> findAll(String usernameOrNull, String search, String category) {
+    public RecipePage findAllFiltered(String usernameOrNull, RecipeFilter filter, String cursor, Integer limit) {
         boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
         String u = loggedIn ? usernameOrNull.trim() : "";
 
-        boolean hasSearch = search != null && !search.isBlank();
-        boolean hasCategory = category != null && !category.isBlank();
+        RecipeFilter f = filter.normalized();
+        if (f.category() != null && f.category().equalsIgnoreCase(MINE_VALUE)) {
+            throw new IllegalArgumentException("unauthorized");
+        }
 
-        if (hasCategory && category.trim().equalsIgnoreCase(MINE_VALUE)) {
+        RecipeSort sort = effectiveSort(f);
+        RecipeCursor after = RecipeCursor.decode(cursor).requireMode(sort != RecipeSort.ID);
+
+        RecipeScope scope = loggedIn ? RecipeScope.PUBLIC_OR_OWNED : RecipeScope.PUBLIC;
+
+        // Relevanz/Nährwert-Sortierung: ein Statement, kein stabiler Key => offset-Cursor
+        if (sort != RecipeSort.ID) {
+            return offsetPage(scope, u, f, sort, after, limit);
+        }
+
+        Integer fetch = fetchSize(limit);
+
+        // (Rang, id)-Reihenfolge: erst public, danach (eingeloggt) die eigenen Rezepte
+        List<RecipeSummary> rows = new ArrayList<>();
+        if (after.rank() == RecipeCursor.PUBLIC_RANK) {
+            rows.addAll(publicRows(u, f, after.id(), fetch));
+        }
+
+        if (loggedIn && (fetch == null || rows.size() < fetch)) {
+            long afterId = after.rank() == RecipeCursor.OWNED_RANK ? after.id() : 0L;
+            Integer remaining = fetch == null ? null : fetch - rows.size();
+            rows.addAll(queries.find(RecipeScope.MINE, u, f, sort, afterId, 0, remaining));
+        }
+
+        return toPage(rows, limit);
+    }
+
+    public List<RecipeSummary> findMine(String username, String search) {
+        return findMineFiltered(username, RecipeFilter.of(search, null), null, null).items();
+    }
+
+    public RecipePage findMinePage(String username, String search, String cursor, Integer limit) {
+        return findMineFiltered(username, RecipeFilter.of(search, null), cursor, limit);
+    }
+
+    public RecipePage findMineFiltered(String username, RecipeFilter filter, String cursor, Integer limit) {
+        String u = username == null ? "" : username.trim();
+        if (u.isBlank()) throw new IllegalArgumentException("unauthorized");
+
+        // "__mine__" ist die Kategorie selbst => kein weiterer Kategorie-Filter
+        RecipeFilter f = filter.withCategory(null).normalized();
+        RecipeSort sort = effectiveSort(f);
+        RecipeCursor after = RecipeCursor.decode(cursor).requireMode(sort != RecipeSort.ID);
+
+        if (sort != RecipeSort.ID) {
+            return offsetPage(RecipeScope.MINE, u, f, sort, after, limit);
+        }
+
+        long afterId = after.rank() == RecipeCursor.OWNED_RANK ? after.id() : 0L;
+
+        List<RecipeSummary> rows = queries.find(RecipeScope.MINE, u, f, sort, afterId, 0, fetchSize(limit));
+        return toPage(rows, limit);
+    }
+
+    // Facetten (Kategorie, Zeit, kcal) zur gleichen Abfrage wie findAllFiltered/findMineFiltered
+    public FacetedPage withFacets(String usernameOrNull, RecipeFilter filter, RecipePage page) {
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        String u = loggedIn ? usernameOrNull.trim() : "";
+
+        RecipeFilter f = filter.normalized();
+        RecipeScope scope = loggedIn ? RecipeScope.PUBLIC_OR_OWNED : RecipeScope.PUBLIC;
+
+        if (f.category() != null && f.category().equalsIgnoreCase(MINE_VALUE)) {
+            if (!loggedIn) throw new IllegalArgumentException("unauthorized");
+            scope = RecipeScope.MINE;
+            f = f.withCategory(null);
+        }
+
+        return new FacetedPage(page.items(), page.next(), queries.facets(scope, u, f));
+    }
+
+    // Ergebnis von streamFiltered: Prüfungen sind schon gelaufen, die Abfrage startet erst mit forEach
+    @FunctionalInterface
+    public interface RecipeStream {
+        void forEach(Consumer<RecipeSummary> sink);
+    }
+
+    /**
+     * Streaming (NDJSON): gleiche Treffer und Reihenfolge wie findAllFiltered/findMineFiltered ohne limit.
+     * Gelesen wird in Seiten zu STREAM_PAGE_SIZE (Keyset über Sortwert + id, auch bei Relevanz), jede Seite ein kurzes
+     * Statement ohne Transaktion => Speicher bleibt begrenzt, und beim Schreiben ist keine DB-Verbindung belegt.
+     */
+    public RecipeStream streamFiltered(String usernameOrNull, RecipeFilter filter, boolean mine) {
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        String u = loggedIn ? usernameOrNull.trim() : "";
+        if (mine && !loggedIn) throw new IllegalArgumentException("unauthorized");
+
+        RecipeFilter f = mine ? filter.withCategory(null).normalized() : filter.normalized();
+        if (!mine && f.category() != null && f.category().equalsIgnoreCase(MINE_VALUE)) {
             throw new IllegalArgumentException("unauthorized");
         }
+        RecipeSort sort = effectiveSort(f);
+
+        return sink -> {
+            if (mine) {
+                streamPages(RecipeScope.MINE, u, f, sort, sink);
+                return;
+            }
+            if (sort != RecipeSort.ID) {
+                streamPages(loggedIn ? RecipeScope.PUBLIC_OR_OWNED : RecipeScope.PUBLIC, u, f, sort, sink);
+                return;
+            }
 
-        if (loggedIn) {
-            if (!hasSearch && !hasCategory) return repo.findPublicOrOwned(u);
+            // (Rang, id)-Reihenfolge wie findAllFiltered: public (wenn möglich aus dem Katalog), danach die eigenen
+            PublicCatalog.Snapshot catalog = publicCatalog.current();
+            if (catalog != null && f.search() == null && !f.hasRanges()) {
+                catalog.page(f.category(), 0L, null).forEach(sink);
+            } else {
+                streamPages(RecipeScope.PUBLIC, u, f, sort, sink);
+            }
+            if (loggedIn) streamPages(RecipeScope.MINE, u, f, sort, sink);
+        };
+    }
 
-            if (hasCategory && hasSearch) return repo.searchInCategoryPublicOrOwned(u, category.trim(), search.trim());
-            if (hasCategory) return repo.findByCategoryPublicOrOwned(u, category.trim());
+    // kein OFFSET: jede Seite setzt hinter (Sortwert, id) der letzten Zeile fort => gleich teuer, ohne Lücken/Doppelte
+    private void streamPages(RecipeScope scope, String username, RecipeFilter filter, RecipeSort sort, Consumer<RecipeSummary> sink) {
+        RecipeQueryRepository.Keyset after = null;
+        while (true) {
+            List<RecipeQueryRepository.KeysetRow> rows = queries.findAfter(scope, username, filter, sort, after, STREAM_PAGE_SIZE);
 
-            return repo.searchPublicOrOwned(u, search.trim());
+            for (RecipeQueryRepository.KeysetRow row : rows) sink.accept(row.summary());
+            if (rows.size() < STREAM_PAGE_SIZE) return;
+
+            after = rows.get(rows.size() - 1).keyset();
         }
+    }
 
-        // guest => public only
-        if (!hasSearch && !hasCategory) return repo.findPublicOnly();
+    // Tippfehler-tolerant ("spagetti"), nur über Titel, nach Ähnlichkeit sortiert => keine weiteren Seiten
+    public List<RecipeSummary> findAllFuzzy(String usernameOrNull, String search, String category, Integer limit) {
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        boolean hasCategory = category != null && !category.isBlank();
 
-        if (hasCategory && hasSearch) return repo.searchInCategoryPublicOnly(category.trim(), search.trim());
-        if (hasCategory) return repo.findByCategoryPublicOnly(category.trim());
+        if (hasCategory && category.trim().equalsIgnoreCase(MINE_VALUE)) {
+            throw new IllegalArgumentException("unauthorized");
+        }
 
-        return repo.searchPublicOnly(search.trim());
+        RecipeScope scope = loggedIn ? RecipeScope.PUBLIC_OR_OWNED : RecipeScope.PUBLIC;
+        String u = loggedIn ? usernameOrNull.trim() : "";
+        return fuzzy(scope, u, hasCategory ? category.trim() : null, search, limit);
     }
 
-    public List<Recipe> findMine(String username, String search) {
+    public List<RecipeSummary> findMineFuzzy(String username, String search, Integer limit) {
         String u = username == null ? "" : username.trim();
         if (u.isBlank()) throw new IllegalArgumentException("unauthorized");
 
-        boolean hasSearch = search != null && !search.isBlank();
-        if (!hasSearch) return repo.findMineOrdered(u);
+        return fuzzy(RecipeScope.MINE, u, null, search, limit);
+    }
+
+    private List<RecipeSummary> fuzzy(RecipeScope scope, String username, String category, String search, Integer limit) {
+        if (search == null || search.isBlank()) throw new IllegalArgumentException("search ist bei mode=fuzzy Pflicht");
+        if (!trigramIndex.isReady()) throw new IndexNotReadyException("Trigramm-Index ist noch nicht bereit");
+
+        int max = limit == null ? DEFAULT_FUZZY_RESULTS : validLimit(limit);
+        return trigramIndex.search(scope, username, category, search.trim(), max);
+    }
+
+    // Autocomplete: public + (eingeloggt) eigene Titel/Kategorien/Zutaten, komplett aus dem Speicher
+    public List<Suggestion> suggest(String usernameOrNull, String q, Integer limit) {
+        if (q == null || q.isBlank()) return List.of();
+        if (!suggestions.isReady()) return List.of();
+
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        int max = limit == null ? SuggestionTrie.MAX_SUGGESTIONS : Math.min(validLimit(limit), SuggestionTrie.MAX_SUGGESTIONS);
+        return suggestions.suggest(q, loggedIn ? usernameOrNull.trim() : null, max);
+    }
+
+    // "Was kann ich kochen?": sichtbare Rezepte nach Anteil vorhandener Zutaten, inkl. fehlender Zutaten
+    public List<IngredientMatch> findByIngredients(
+            String usernameOrNull,
+            List<String> have,
+            String category,
+            Integer maxMissing,
+            Integer limit
+    ) {
+        List<String> names = have == null ? List.of() : have.stream()
+                .filter(n -> n != null && !n.isBlank())
+                .map(String::trim)
+                .distinct()
+                .toList();
+
+        if (names.isEmpty()) throw new IllegalArgumentException("have ist Pflicht (mindestens 1 Zutat)");
+        if (names.size() > MAX_HAVE_INGREDIENTS) {
+            throw new IllegalArgumentException("höchstens " + MAX_HAVE_INGREDIENTS + " Zutaten erlaubt");
+        }
+        if (maxMissing != null && maxMissing < 0) throw new IllegalArgumentException("maxMissing darf nicht negativ sein");
+        if (!ingredientIndex.isReady()) throw new IndexNotReadyException("Zutaten-Index ist noch nicht bereit");
+
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        boolean hasCategory = category != null && !category.isBlank();
+
+        RecipeScope scope = RecipeScope.PUBLIC;
+        String c = hasCategory ? category.trim() : null;
+        if (c != null && c.equalsIgnoreCase(MINE_VALUE)) {
+            if (!loggedIn) throw new IllegalArgumentException("unauthorized");
+            scope = RecipeScope.MINE;
+            c = null;
+        } else if (loggedIn) {
+            scope = RecipeScope.PUBLIC_OR_OWNED;
+        }
+
+        int max = limit == null ? DEFAULT_FUZZY_RESULTS : validLimit(limit);
+        return ingredientIndex.search(scope, loggedIn ? usernameOrNull.trim() : "", c, names, maxMissing, max);
+    }
+
+    // public Teil ohne Text-/Bereichsfilter: aus dem Katalog-Snapshot statt aus der DB
+    private List<RecipeSummary> publicRows(String username, RecipeFilter filter, long afterId, Integer fetch) {
+        PublicCatalog.Snapshot catalog = publicCatalog.current();
+        if (catalog != null && filter.search() == null && !filter.hasRanges()) {
+            return catalog.page(filter.category(), afterId, fetch);
+        }
+        return queries.find(RecipeScope.PUBLIC, username, filter, RecipeSort.ID, afterId, 0, fetch);
+    }
+
+    // Standard: Suche auf Postgres nach Relevanz, sonst nach id (Keyset)
+    private RecipeSort effectiveSort(RecipeFilter filter) {
+        RecipeSort sort = filter.sort();
+        if (sort == null) sort = filter.search() != null ? RecipeSort.RELEVANCE : RecipeSort.ID;
+
+        boolean ranked = filter.search() != null && queries.isFullTextAvailable();
+        return sort == RecipeSort.RELEVANCE && !ranked ? RecipeSort.ID : sort;
+    }
+
+    private RecipePage offsetPage(
+            RecipeScope scope,
+            String username,
+            RecipeFilter filter,
+            RecipeSort sort,
+            RecipeCursor after,
+            Integer limit
+    ) {
+        List<RecipeSummary> rows = queries.find(scope, username, filter, sort, 0L, after.offset(), fetchSize(limit));
+        if (limit == null || rows.size() <= limit) return new RecipePage(rows, null);
+
+        String next = RecipeCursor.atOffset(after.offset() + limit).encode();
+        return new RecipePage(new ArrayList<>(rows.subList(0, limit)), next);
+    }
+
+    // eine Zeile mehr laden als angefragt => daran erkennen wir, ob es eine nächste Seite gibt
+    private Integer fetchSize(Integer limit) {
+        if (limit == null) return null;
+        return validLimit(limit) + 1;
+    }
+
+    private int validLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit muss zwischen 1 und " + MAX_PAGE_SIZE + " liegen");
+        }
+        return limit;
+    }
+
+    private RecipePage toPage(List<RecipeSummary> rows, Integer limit) {
+        if (limit == null || rows.size() <= limit) return new RecipePage(rows, null);
 
-        return repo.searchMineOrdered(u, search.trim());
+        List<RecipeSummary> items = rows.subList(0, limit);
+        String next = RecipeCursor.after(items.get(items.size() - 1)).encode();
+        return new RecipePage(new ArrayList<>(items), next);
     }
 
     public Recipe findByIdForUser(Long id, String usernameOrNull) {
@@ -76,68 +396,391 @@ public class RecipeService {
                 .orElseThrow(() -> new IllegalArgumentException("forbidden"));
     }
 
-    @Transactional
-    public Recipe createForUser(Recipe recipe, String username) {
-        String title = recipe.getTitle() == null ? "" : recipe.getTitle().trim();
-        String desc = recipe.getDescription() == null ? "" : recipe.getDescription().trim();
-        String instr = recipe.getInstructions() == null ? "" : recipe.getInstructions().trim();
+    // Detailansicht/PDF. Bewusst ohne @Transactional: Treffer im Katalog-Snapshot brauchen keine Verbindung.
+    // Sonst kurze Transaktion über findById => Recipe und Zutaten kommen aus dem Second-Level-Cache
+    public RecipeDetail findDetailForUser(Long id, String usernameOrNull) {
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
 
-        if (title.isBlank()) throw new IllegalArgumentException("Titel ist ein Pflichtfeld.");
-        if (desc.isBlank()) throw new IllegalArgumentException("Beschreibung ist ein Pflichtfeld.");
-        if (instr.isBlank()) throw new IllegalArgumentException("Mindestens 1 Schritt ist Pflicht.");
+        // public Rezepte sind für alle sichtbar; Gäste sehen nur diese
+        PublicCatalog.Snapshot catalog = publicCatalog.current();
+        if (catalog != null) {
+            RecipeDetail detail = catalog.detail(id);
+            if (detail != null) return detail;
+            if (!loggedIn) throw new IllegalArgumentException("forbidden");
+        }
 
-        if (recipe.getIngredients() == null || recipe.getIngredients().isEmpty()) {
-            throw new IllegalArgumentException("Mindestens 1 Zutat ist Pflicht.");
+        return readOnlyTx.execute(status -> {
+            Recipe recipe = repo.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("forbidden"));
+
+            requireVisible(recipe.getCreatedByUsername(), usernameOrNull);
+            return RecipeDetail.of(recipe);
+        });
+    }
+
+    // forbidden = fremde oder fehlende ids (wie bei GET /{id} nicht unterscheidbar)
+    public record RecipeBatch(List<RecipeDetail> items, List<Long> forbidden) {}
+
+    /**
+     * Mehrere Detailansichten in einem Aufruf (Favoriten, Wochenplan, zuletzt angesehen).
+     * Public aus dem Katalog, der Rest mit einer sichtbarkeitsgefilterten IN-Abfrage; Reihenfolge wie angefragt.
+     */
+    public RecipeBatch findDetailsForUser(Collection<Long> ids, String usernameOrNull) {
+        if (ids == null || ids.isEmpty()) throw new IllegalArgumentException("ids ist Pflicht");
+        if (ids.contains(null)) throw new IllegalArgumentException("ids darf keine leeren Einträge enthalten");
+
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        if (unique.size() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("höchstens " + MAX_PAGE_SIZE + " ids pro Anfrage");
         }
-        if (recipe.getNutrition() == null) {
-            throw new IllegalArgumentException("Nährwerte sind Pflicht.");
+
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        Map<Long, RecipeDetail> found = new HashMap<>();
+        List<Long> rest = new ArrayList<>();
+
+        PublicCatalog.Snapshot catalog = publicCatalog.current();
+        for (Long id : unique) {
+            RecipeDetail detail = catalog != null ? catalog.detail(id) : null;
+            if (detail != null) found.put(id, detail);
+            else rest.add(id);
+        }
+
+        // Gäste sehen nur public Rezepte => mit Katalog keine DB nötig
+        if (!rest.isEmpty() && (loggedIn || catalog == null)) {
+            String u = loggedIn ? usernameOrNull.trim() : "";
+            readOnlyTx.executeWithoutResult(status -> {
+                for (Recipe recipe : repo.findVisibleWithIngredientsByIdIn(rest, u)) {
+                    found.put(recipe.getId(), RecipeDetail.of(recipe));
+                }
+            });
+        }
+
+        List<RecipeDetail> items = new ArrayList<>(found.size());
+        List<Long> forbidden = new ArrayList<>();
+        for (Long id : unique) {
+            RecipeDetail detail = found.get(id);
+            if (detail != null) items.add(detail);
+            else forbidden.add(id);
+        }
+        return new RecipeBatch(items, forbidden);
+    }
+
+    // ===== HTTP-Validierung (ETag/Last-Modified) =====
+
+    // version = @Version des Rezepts (ETag/If-Match), updatedAt für Last-Modified
+    public record RecipeVersion(long id, long version, Instant updatedAt) {}
+
+    // Änderungsstand eines sichtbaren Rezepts, ohne Rezept/Zutaten/Bild zu laden (public: aus dem Katalog)
+    public RecipeVersion findVersionForUser(Long id, String usernameOrNull) {
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+
+        PublicCatalog.Snapshot catalog = publicCatalog.current();
+        if (catalog != null) {
+            RecipeDetail detail = catalog.detail(id);
+            if (detail != null) return new RecipeVersion(id, versionOf(detail.version()), detail.updatedAt());
+            if (!loggedIn) throw new IllegalArgumentException("forbidden");
+        }
+
+        RecipeStamp stamp = repo.findStampById(id)
+                .orElseThrow(() -> new IllegalArgumentException("forbidden"));
+        requireVisible(stamp.getOwner(), usernameOrNull);
+        return new RecipeVersion(id, versionOf(stamp.getVersion()), stamp.getUpdatedAt());
+    }
+
+    private static long versionOf(Long version) {
+        return version == null ? 0L : version;
+    }
+
+    // Stand aller sichtbaren Rezepte für List-ETags: public aus dem Katalog (ohne DB), eingeloggt zusätzlich die eigenen
+    public String listVersion(String usernameOrNull) {
+        PublicCatalog.Snapshot catalog = publicCatalog.current();
+        String version = "p" + (catalog != null ? catalog.content() : repo.findPublicVersion()).token();
+
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        if (!loggedIn) return version;
+        return version + "-u" + repo.findOwnedVersion(usernameOrNull.trim()).token();
+    }
+
+    private static void requireVisible(String owner, String usernameOrNull) {
+        boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
+        if (owner != null && !(loggedIn && owner.equalsIgnoreCase(usernameOrNull.trim()))) {
+            throw new IllegalArgumentException("forbidden");
+        }
+    }
+
+    // externalUrl != null => Redirect, sonst sha256 => Bytes aus dem Bild-Store
+    public record ImageRef(String sha256, String externalUrl) {}
+
+    // Bild für Liste/Detail (thumbnailUrl, imageUrl): nur Sichtbarkeit + Verweis lesen, keine Bild-Bytes
+    public ImageRef findImageForUser(Long id, String usernameOrNull) {
+        RecipeImageRow row = repo.findImageRowById(id)
+                .orElseThrow(() -> new IllegalArgumentException("forbidden"));
+        requireVisible(row.getOwner(), usernameOrNull);
+
+        // Altbestand, den die Hintergrund-Migration noch nicht erreicht hat => jetzt migrieren
+        if (Boolean.TRUE.equals(row.getLegacyImage()) || ImageService.isDataUrl(row.getImageUrl())) {
+            imageMigration.migrate(id);
+            row = repo.findImageRowById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Bild nicht gefunden: " + id));
         }
 
+        if (row.getImageSha256() != null) return new ImageRef(row.getImageSha256(), null);
+
+        String url = row.getImageUrl();
+        if (url != null && !url.isBlank()) return new ImageRef(null, url.trim());
+
+        throw new IllegalArgumentException("Bild nicht gefunden: " + id);
+    }
+
+    @Transactional
+    public Recipe createForUser(Recipe recipe, String username) {
+        requireComplete(recipe);
+
         recipe.setCreatedByUsername(username);
+        images.moveInlineImage(recipe);
 
         if (recipe.getIngredients() != null) {
             for (Ingredient ing : recipe.getIngredients()) {
                 ing.setRecipe(recipe);
             }
         }
-        return repo.save(recipe);
+        // SEQUENCE-ids => INSERT käme sonst erst beim Commit; JDBC-Listen in derselben Transaktion sähen das Rezept nicht
+        Recipe saved = repo.saveAndFlush(recipe);
+        events.publishEvent(RecipeChangedEvent.saved(RecipeDocument.of(saved)));
+        return saved;
     }
 
     @Transactional
     public Recipe updateForUser(Long id, Recipe incoming, String username) {
+        return updateForUser(id, incoming, null, username);
+    }
+
+    // expectedVersion (aus If-Match) != Version in der DB => 412; null => ohne Vorbedingung
+    @Transactional
+    public Recipe updateForUser(Long id, Recipe incoming, Long expectedVersion, String username) {
         Recipe existing = repo.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Recipe nicht gefunden: " + id));
 
         requireOwner(existing, username, "ändern");
+        requireVersion(existing, expectedVersion);
 
         if (incoming.getTitle() != null) existing.setTitle(incoming.getTitle());
         if (incoming.getDescription() != null) existing.setDescription(incoming.getDescription());
         if (incoming.getInstructions() != null) existing.setInstructions(incoming.getInstructions());
         if (incoming.getCategory() != null) existing.setCategory(incoming.getCategory());
 
-        if (incoming.getImageUrl() != null) existing.setImageUrl(incoming.getImageUrl());
+        // neues Bild (inline oder externe URL) ersetzt das alte ("" bei imageBase64 entfernt es);
+        // Inline-Bytes landen danach im Bild-Store. Der alte sha würde sonst beim Ausliefern gewinnen.
+        // Die eigene Bild-URL aus RecipeDetail (Client schickt die Detailansicht zurück) heißt "unverändert"
+        String imageUrl = isOwnImagePath(existing, incoming.getImageUrl()) ? null : incoming.getImageUrl();
+        if (incoming.getImageBase64() != null || imageUrl != null) {
+            existing.setImageSha256(null);
+        }
+        if (imageUrl != null) existing.setImageUrl(imageUrl);
         if (incoming.getImageBase64() != null) existing.setImageBase64(incoming.getImageBase64());
+        images.moveInlineImage(existing);
 
         if (incoming.getPrepMinutes() != null) existing.setPrepMinutes(incoming.getPrepMinutes());
         if (incoming.getServings() != null) existing.setServings(incoming.getServings());
 
         if (incoming.getNutrition() != null) existing.setNutrition(incoming.getNutrition());
-        if (incoming.getIngredients() != null) existing.setIngredients(incoming.getIngredients());
+        // nur geänderte Zutaten schreiben (statt alle löschen und neu einfügen);
+        // leere Liste = nicht mitgeschickt (Recipe legt ingredients immer an, mindestens 1 Zutat ist Pflicht)
+        List<Ingredient> ingredients = incoming.getIngredients();
+        if (ingredients != null && !ingredients.isEmpty()) existing.mergeIngredients(ingredients);
+
+        // flush => neue Version/updatedAt stehen schon in der Antwort (ETag), Konflikte fallen hier auf
+        Recipe saved = repo.saveAndFlush(existing);
+        events.publishEvent(RecipeChangedEvent.saved(RecipeDocument.of(saved)));
+        return saved;
+    }
+
+    /**
+     * PATCH nach RFC 7396 (JSON Merge Patch): nur die geschickten Felder ändern sich, null entfernt ein Feld,
+     * Objekte (nutrition) werden feldweise gemischt, Listen (ingredients) als Ganzes ersetzt.
+     * Kein Lock: expectedVersion (If-Match) und @Version beim UPDATE => 412 bei gleichzeitiger Änderung.
+     */
+    @Transactional
+    public RecipeDetail patchForUser(Long id, JsonNode patch, Long expectedVersion, String username) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Merge-Patch muss ein JSON-Objekt sein.");
+        }
+
+        Recipe existing = repo.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Recipe nicht gefunden: " + id));
+
+        requireOwner(existing, username, "ändern");
+        requireVersion(existing, expectedVersion);
+
+        // Patch auf die JSON-Darstellung anwenden und zurücklesen => Typen/Formate wie bei PUT
+        Recipe merged;
+        try {
+            merged = objectMapper.treeToValue(mergePatch(objectMapper.valueToTree(existing), patch), Recipe.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Merge-Patch ist ungültig: " + ex.getOriginalMessage());
+        }
+
+        for (Map.Entry<String, JsonNode> field : patch.properties()) {
+            switch (field.getKey()) {
+                case "title" -> existing.setTitle(merged.getTitle());
+                case "description" -> existing.setDescription(merged.getDescription());
+                case "instructions" -> existing.setInstructions(merged.getInstructions());
+                case "category" -> existing.setCategory(merged.getCategory());
+                case "prepMinutes" -> existing.setPrepMinutes(merged.getPrepMinutes());
+                case "servings" -> existing.setServings(merged.getServings());
+                case "nutrition" -> existing.setNutrition(merged.getNutrition());
+                case "ingredients" -> existing.mergeIngredients(merged.getIngredients());
+                case "imageUrl", "imageBase64" -> { } // unten, zusammen
+                // nur lesbar (z.B. wenn der Client die Detailansicht zurückschickt)
+                case "id", "version", "createdByUsername", "createdAt", "updatedAt" -> { }
+                default -> throw new IllegalArgumentException("Feld ist unbekannt: " + field.getKey());
+            }
+        }
+
+        // vor dem Bild-Store prüfen: dessen Abfragen würden sonst einen ungültigen Stand flushen
+        requireValid(existing);
+
+        // neues Bild (inline oder externe URL) ersetzt das alte, imageBase64: null entfernt es;
+        // die eigene Bild-URL aus RecipeDetail zählt wie bei PUT als "unverändert"
+        boolean imageUrlChanged = patch.has("imageUrl") && !isOwnImagePath(existing, merged.getImageUrl());
+        if (patch.has("imageBase64") || imageUrlChanged) {
+            existing.setImageSha256(null);
+        }
+        if (imageUrlChanged) existing.setImageUrl(merged.getImageUrl());
+        if (patch.has("imageBase64")) existing.setImageBase64(merged.getImageBase64());
+        images.moveInlineImage(existing);
+
+        Recipe saved = repo.saveAndFlush(existing);
+        events.publishEvent(RecipeChangedEvent.saved(RecipeDocument.of(saved)));
+        return RecipeDetail.of(saved);
+    }
+
+    // RFC 7396, Abschnitt 2
+    static JsonNode mergePatch(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) return patch;
+
+        ObjectNode result = target != null && target.isObject()
+                ? ((ObjectNode) target).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+
+        for (Map.Entry<String, JsonNode> field : patch.properties()) {
+            if (field.getValue().isNull()) result.remove(field.getKey());
+            else result.set(field.getKey(), mergePatch(result.get(field.getKey()), field.getValue()));
+        }
+        return result;
+    }
 
-        return repo.save(existing);
+    // RecipeDetail.of liefert für Bilder im Store diesen Pfad statt einer echten URL => nie speichern (Redirect auf sich selbst)
+    private static boolean isOwnImagePath(Recipe recipe, String imageUrl) {
+        return imageUrl != null && imageUrl.trim().equals(RecipeSummary.imagePath(recipe.getId()));
+    }
+
+    private static void requireVersion(Recipe recipe, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(recipe.getVersion())) {
+            throw new OptimisticLockingFailureException("Recipe " + recipe.getId() + " hat Version " + recipe.getVersion()
+                    + ", erwartet " + expectedVersion + ".");
+        }
+    }
+
+    // Bean Validation wie bei POST (@Valid) + Pflichtfelder, sonst käme der Fehler erst beim flush als 500
+    private void requireValid(Recipe recipe) {
+        requireComplete(recipe);
+        validator.validate(recipe).stream()
+                .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .findFirst()
+                .ifPresent(v -> { throw new IllegalArgumentException(v.getMessage()); });
     }
 
     @Transactional
-    public void deleteForUser(Long id, String username) {
+    public RecipeDetail createDetailForUser(Recipe recipe, String username) {
+        return RecipeDetail.of(createForUser(recipe, username));
+    }
+
+    @Transactional
+    public RecipeDetail updateDetailForUser(Long id, Recipe incoming, Long expectedVersion, String username) {
+        return RecipeDetail.of(updateForUser(id, incoming, expectedVersion, username));
+    }
+
+    // Multipart-Upload: erst Besitzer prüfen, dann Bytes direkt aus dem Stream in den Bild-Store
+    @Transactional
+    public RecipeDetail uploadImageForUser(Long id, String contentType, InputStream in, long size, String username) {
         Recipe existing = repo.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Recipe nicht gefunden: " + id));
 
-        requireOwner(existing, username, "löschen");
-        repo.delete(existing);
+        requireOwner(existing, username, "ändern");
+
+        existing.setImageSha256(images.store(contentType, in, size));
+        existing.setImageBase64(null);
+        if (ImageService.isDataUrl(existing.getImageUrl())) existing.setImageUrl(null);
+
+        // flush => RecipeDetail trägt schon die neue @Version (ETag)
+        Recipe saved = repo.saveAndFlush(existing);
+        events.publishEvent(RecipeChangedEvent.saved(RecipeDocument.of(saved)));
+        return RecipeDetail.of(saved);
+    }
+
+    @Transactional
+    public void deleteForUser(Long id, String username) {
+        deleteAllForUser(List.of(id), username);
+    }
+
+    public record DeleteResult(int deleted) {}
+
+    /**
+     * Mehrere eigene Rezepte löschen, ohne Entities zu laden: Besitz für alle ids in einer Abfrage,
+     * dann Favoriten-Links, Zutaten und Rezepte mit je einem DELETE ... WHERE ... IN (statt Cascade Zeile für Zeile).
+     * Alles oder nichts: ein unbekanntes oder fremdes Rezept => 404/403 und nichts wird gelöscht.
+     */
+    @Transactional
+    public DeleteResult deleteAllForUser(Collection<Long> ids, String username) {
+        if (ids == null || ids.isEmpty()) throw new IllegalArgumentException("ids ist Pflicht");
+        if (ids.contains(null)) throw new IllegalArgumentException("ids darf keine leeren Einträge enthalten");
+
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        if (unique.size() > MAX_BULK_DELETE) {
+            throw new IllegalArgumentException("höchstens " + MAX_BULK_DELETE + " Rezepte pro Anfrage");
+        }
+
+        Map<Long, String> owners = new HashMap<>();
+        for (RecipeOwner row : repo.findOwnersByIdIn(unique)) owners.put(row.getId(), row.getOwner());
+
+        for (Long id : unique) {
+            if (!owners.containsKey(id)) throw new IllegalArgumentException("Recipe nicht gefunden: " + id);
+            requireOwner(owners.get(id), username, "löschen");
+        }
+
+        // Reihenfolge wegen der Fremdschlüssel: erst Links und Zutaten, dann die Rezepte
+        repo.deleteFavoriteLinks(unique);
+        repo.deleteIngredientsByRecipeIds(unique);
+        int deleted = repo.deleteAllByIdIn(unique);
+
+        for (Long id : unique) events.publishEvent(RecipeChangedEvent.deleted(id));
+        return new DeleteResult(deleted);
     }
 
-    private void requireOwner(Recipe recipe, String username, String actionVerb) {
-        String owner = recipe.getCreatedByUsername();
+    // Pflichtfelder eines neuen Rezepts (auch für den Massenimport, siehe RecipeImportService)
+    static void requireComplete(Recipe recipe) {
+        String title = recipe.getTitle() == null ? "" : recipe.getTitle().trim();
+        String desc = recipe.getDescription() == null ? "" : recipe.getDescription().trim();
+        String instr = recipe.getInstructions() == null ? "" : recipe.getInstructions().trim();
+
+        if (title.isBlank()) throw new IllegalArgumentException("Titel ist ein Pflichtfeld.");
+        if (desc.isBlank()) throw new IllegalArgumentException("Beschreibung ist ein Pflichtfeld.");
+        if (instr.isBlank()) throw new IllegalArgumentException("Mindestens 1 Schritt ist Pflicht.");
+
+        if (recipe.getIngredients() == null || recipe.getIngredients().isEmpty()) {
+            throw new IllegalArgumentException("Mindestens 1 Zutat ist Pflicht.");
+        }
+        if (recipe.getNutrition() == null) {
+            throw new IllegalArgumentException("Nährwerte sind Pflicht.");
+        }
+    }
+
+    private static void requireOwner(Recipe recipe, String username, String actionVerb) {
+        requireOwner(recipe.getCreatedByUsername(), username, actionVerb);
+    }
+
+    private static void requireOwner(String owner, String username, String actionVerb) {
         String u = username == null ? "" : username.trim();
 
         if (u.isBlank()) throw new IllegalArgumentException("forbidden");
@@ -155,8 +798,14 @@ public class RecipeService {
     // ===== Favoriten =====
 
     @Transactional(readOnly = true)
-    public List<Recipe> getFavorites(UserAccount user) {
-        return new ArrayList<>(user.getFavorites());
+    public List<RecipeSummary> getFavorites(UserAccount user) {
+        return getFavorites(getFavoriteIds(user));
+    }
+
+    // ids z.B. aus AuthService.Principal => User muss nicht geladen werden
+    public List<RecipeSummary> getFavorites(Collection<Long> favoriteIds) {
+        if (favoriteIds.isEmpty()) return List.of();
+        return repo.findSummariesByIdIn(favoriteIds);
     }
 
     @Transactional(readOnly = true)
@@ -169,6 +818,7 @@ public class RecipeService {
         Recipe recipe = findByIdForUser(recipeId, user.getUsername());
         user.getFavorites().add(recipe);
         userRepo.save(user);
+        events.publishEvent(new FavoritesChangedEvent(user.getId()));
     }
 
     @Transactional
@@ -177,13 +827,16 @@ public class RecipeService {
                 .orElseThrow(() -> new IllegalArgumentException("Recipe nicht gefunden: " + recipeId));
         user.getFavorites().remove(recipe);
         userRepo.save(user);
+        events.publishEvent(new FavoritesChangedEvent(user.getId()));
     }
 
-    @Transactional(readOnly = true)
     public List<String> getAllCategories(String usernameOrNull) {
         boolean loggedIn = usernameOrNull != null && !usernameOrNull.trim().isBlank();
         String u = loggedIn ? usernameOrNull.trim() : "";
 
+        PublicCatalog.Snapshot catalog = publicCatalog.current();
+        if (!loggedIn && catalog != null) return catalog.categories();
+
         List<String> raw = loggedIn
                 ? repo.findCategoriesPublicOrOwned(u)
                 : repo.findCategoriesPublicOnly();
@@ -1,7 +1,7 @@
 package com.example.rezeptapp.service;
 
+import com.example.rezeptapp.dto.RecipeSummary;
 import com.example.rezeptapp.model.Nutrition;
-import com.example.rezeptapp.model.Recipe;
 import com.example.rezeptapp.repository.RecipeRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,21 +42,22 @@ public class StatsService {
                 .distinct()
                 .toList();
 
-        List<Recipe> found = recipeRepository.findAllById(ids);
+        // Projektion statt Entities: nur Titel + Nährwerte, kein imageBase64/instructions
+        List<RecipeSummary> found = recipeRepository.findSummariesByIdIn(ids);
 
         // Missing IDs check
-        Set<Long> foundIds = found.stream().map(Recipe::getId).collect(Collectors.toSet());
+        Set<Long> foundIds = found.stream().map(RecipeSummary::id).collect(Collectors.toSet());
         List<Long> missing = ids.stream().filter(id -> !foundIds.contains(id)).toList();
         if (!missing.isEmpty()) {
             throw new IllegalArgumentException("Recipe nicht gefunden: " + missing);
         }
 
         // wieder in request-Reihenfolge sortieren
-        Map<Long, Recipe> byId = found.stream().collect(Collectors.toMap(Recipe::getId, r -> r));
-        List<Recipe> ordered = ids.stream().map(byId::get).toList();
+        Map<Long, RecipeSummary> byId = found.stream().collect(Collectors.toMap(RecipeSummary::id, r -> r));
+        List<RecipeSummary> ordered = ids.stream().map(byId::get).toList();
 
         List<RecipeMacro> perRecipe = ordered.stream()
-                .map(r -> new RecipeMacro(r.getId(), r.getTitle(), toMacro(r.getNutrition())))
+                .map(r -> new RecipeMacro(r.id(), r.title(), toMacro(r.nutrition())))
                 .toList();
 
         Macro total = sum(perRecipe.stream().map(RecipeMacro::macro).toList());
@@ -0,0 +1,236 @@
+package com.example.rezeptapp.service;
+
+import com.example.rezeptapp.model.RecipeImage;
+import com.example.rezeptapp.model.RecipeImageRendition;
+import com.example.rezeptapp.repository.RecipeImageRenditionRepository;
+import com.example.rezeptapp.repository.RecipeImageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Erzeugt im Hintergrund verkleinerte JPEG-Fassungen der Rezeptbilder (für Listen/Karten).
+ * Fester Worker-Pool mit begrenzter Warteschlange: Uploads warten nie auf das Rendern;
+ * ist die Schlange voll, wird der Auftrag verworfen und beim nächsten Abruf (enqueue aus dem Controller) nachgeholt.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+    private static final float JPEG_QUALITY = 0.8f;
+    // Schutz vor "Dekompressionsbomben" (kleine Datei, riesige Pixelmaße)
+    private static final long MAX_PIXELS = 50_000_000L;
+
+    public enum Rendition {
+        THUMB(160),
+        CARD(480);
+
+        private final int maxEdge;
+
+        Rendition(int maxEdge) {
+            this.maxEdge = maxEdge;
+        }
+
+        public int maxEdge() {
+            return maxEdge;
+        }
+
+        public String key(String sha256) {
+            return sha256 + "-" + name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Rendition parse(String size) {
+            for (Rendition r : values()) {
+                if (r.name().equalsIgnoreCase(size.trim())) return r;
+            }
+            throw new IllegalArgumentException("Unbekannte Bildgröße: " + size);
+        }
+    }
+
+    private final RecipeImageRepository images;
+    private final RecipeImageRenditionRepository renditions;
+    private final ThreadPoolExecutor pool;
+
+    // verhindert doppelte Aufträge für dasselbe Bild (Upload + Abruf gleichzeitig)
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ThumbnailService(
+            RecipeImageRepository images,
+            RecipeImageRenditionRepository renditions,
+            @Value("${rezeptapp.images.thumbnail-threads:2}") int threads,
+            @Value("${rezeptapp.images.thumbnail-queue:100}") int queueSize
+    ) {
+        this.images = images;
+        this.renditions = renditions;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "thumbnails-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImageStored(ImageStoredEvent event) {
+        enqueue(event.sha256());
+    }
+
+    // false => schon in Arbeit oder Schlange voll
+    public boolean enqueue(String sha256) {
+        if (!pending.add(sha256)) return false;
+        try {
+            pool.execute(() -> {
+                try {
+                    render(sha256);
+                } finally {
+                    pending.remove(sha256);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            pending.remove(sha256);
+            log.debug("Thumbnail-Warteschlange voll, {} wird später erzeugt.", sha256);
+            return false;
+        }
+    }
+
+    public boolean exists(String sha256, Rendition rendition) {
+        return renditions.existsById(rendition.key(sha256));
+    }
+
+    public Optional<ImageService.StoredImage> load(String sha256, Rendition rendition) {
+        String key = rendition.key(sha256);
+        return renditions.findById(key)
+                .map(r -> new ImageService.StoredImage(key, r.getContentType(), r.getData()));
+    }
+
+    void render(String sha256) {
+        try {
+            byte[] original = images.findById(sha256).map(RecipeImage::getData).orElse(null);
+            if (original == null) return;
+
+            BufferedImage source = decode(original);
+            if (source == null) {
+                log.debug("Bild {} kann nicht verkleinert werden (Format/Größe).", sha256);
+                return;
+            }
+
+            for (Rendition rendition : Rendition.values()) {
+                String key = rendition.key(sha256);
+                if (renditions.existsById(key)) continue;
+
+                BufferedImage scaled = scale(source, rendition.maxEdge());
+                renditions.save(new RecipeImageRendition(
+                        key, CONTENT_TYPE, scaled.getWidth(), scaled.getHeight(), encodeJpeg(scaled)));
+            }
+        } catch (Exception ex) {
+            // kaputtes Bild o.ä.: Listen zeigen dann weiter das Original
+            log.warn("Thumbnails für {} fehlgeschlagen: {}", sha256, ex.getMessage());
+        }
+    }
+
+    // dekodiert nur jede n-te Zeile/Spalte, wenn das Bild viel größer als die größte Fassung ist => wenig Heap
+    private static BufferedImage decode(byte[] data) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) return null;
+
+                int largest = 0;
+                for (Rendition r : Rendition.values()) largest = Math.max(largest, r.maxEdge());
+                int step = Math.max(1, Math.max(width, height) / (2 * largest));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxEdge) {
+        double factor = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+
+        // JPEG hat keinen Alphakanal => transparente Flächen werden weiß
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.rezeptapp.controller;
 
 import com.example.rezeptapp.config.GlobalExceptionHandler;
+import com.example.rezeptapp.service.IndexNotReadyException;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -24,6 +26,16 @@ class GlobalExceptionHandlerTest {
         public String unauth() {
             throw new IllegalArgumentException("unauthorized");
         }
+
+        @GetMapping("/not-ready")
+        public String notReady() {
+            throw new IndexNotReadyException("Trigramm-Index ist noch nicht bereit");
+        }
+
+        @GetMapping("/too-large")
+        public String tooLarge() {
+            throw new MaxUploadSizeExceededException(5 * 1024 * 1024);
+        }
     }
 
     private final MockMvc mvc = MockMvcBuilders
@@ -42,6 +54,23 @@ class GlobalExceptionHandlerTest {
                 .andExpect(jsonPath("$.timestamp", notNullValue()));
     }
 
+    @Test
+    void maxUploadSize_mapsTo413() throws Exception {
+        mvc.perform(get("/too-large"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.status").value(413))
+                .andExpect(jsonPath("$.message").value("Upload ist zu groß."));
+    }
+
+    @Test
+    void indexNotReady_mapsTo503_withRetryAfter() throws Exception {
+        mvc.perform(get("/not-ready"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.message").value("Trigramm-Index ist noch nicht bereit"));
+    }
+
     @Test
     void genericException_mapsTo500() throws Exception {
         mvc.perform(get("/boom"))
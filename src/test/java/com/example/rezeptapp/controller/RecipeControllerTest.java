@@ -1,24 +1,38 @@
 // rezeptapp/src/test/java/com/example/rezeptapp/controller/RecipeControllerTest.java
 package com.example.rezeptapp.controller;
 
+import com.example.rezeptapp.config.StatementCounter;
 import com.example.rezeptapp.model.Ingredient;
 import com.example.rezeptapp.model.Nutrition;
 import com.example.rezeptapp.model.Recipe;
 import com.example.rezeptapp.repository.RecipeRepository;
+import com.example.rezeptapp.search.PublicCatalog;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -30,6 +44,7 @@ class RecipeControllerTest {
     @Autowired MockMvc mvc;
     @Autowired ObjectMapper om;
     @Autowired RecipeRepository recipeRepo;
+    @Autowired PublicCatalog publicCatalog;
 
     private String randomUser() {
         return "u_" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
@@ -91,6 +106,19 @@ class RecipeControllerTest {
         return om.readTree(json).get("id").asLong();
     }
 
+    private void createFavoriteAs(String token, String title) throws Exception {
+        long id = createRecipeAs(token, title);
+        mvc.perform(post("/rezeptapp/" + id + "/favorite")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+        StatementCounter.reset();
+        mvc.perform(request).andExpect(status().isOk());
+        return StatementCounter.count();
+    }
+
     private long anyPublicRecipeId() {
         // Seeder-Rezepte sind public => createdByUsername == null
         return recipeRepo.findPublicOnly().stream()
@@ -109,6 +137,353 @@ class RecipeControllerTest {
                 .andExpect(jsonPath("$[*].createdByUsername", everyItem(nullValue())));
     }
 
+    @Test
+    void getMine_withLimit_returnsPageWithNextCursor() throws Exception {
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+        long first = createRecipeAs(token, "Paged_A_" + UUID.randomUUID().toString().substring(0, 6));
+        long second = createRecipeAs(token, "Paged_B_" + UUID.randomUUID().toString().substring(0, 6));
+
+        String json = mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .param("limit", "1")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is((int) first)))
+                .andExpect(jsonPath("$.next", not(blankOrNullString())))
+                .andReturn().getResponse().getContentAsString();
+
+        String next = om.readTree(json).get("next").asText();
+
+        mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .param("limit", "1")
+                        .param("cursor", next)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is((int) second)))
+                .andExpect(jsonPath("$.next", nullValue()));
+    }
+
+    @Test
+    void getMine_returnsSummaries_withThumbnailInsteadOfImageData() throws Exception {
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+
+        Recipe r = validRecipe("WithImage_" + UUID.randomUUID().toString().substring(0, 6));
+        r.setImageBase64("data:image/png;base64,iVBORw0KGgo=");
+
+        String json = mvc.perform(post("/rezeptapp")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(r)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = om.readTree(json).get("id").asLong();
+
+        mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is((int) id)))
+                .andExpect(jsonPath("$[0].nutrition.caloriesKcal", is(500)))
+                .andExpect(jsonPath("$[0].thumbnailUrl", is("/rezeptapp/" + id + "/image?size=thumb")))
+                .andExpect(jsonPath("$[0].cardImageUrl", is("/rezeptapp/" + id + "/image?size=card")))
+                .andExpect(jsonPath("$[0].imageBase64").doesNotExist())
+                .andExpect(jsonPath("$[0].instructions").doesNotExist())
+                .andExpect(jsonPath("$[0].ingredients").doesNotExist());
+
+        mvc.perform(get("/rezeptapp/" + id + "/image")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("image/png")));
+    }
+
+    @Test
+    void getRecipeImage_servedFromBlobStore_withEtagAndRange() throws Exception {
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+
+        Recipe r = validRecipe("Blob_" + UUID.randomUUID().toString().substring(0, 6));
+        r.setImageBase64("data:image/png;base64,iVBORw0KGgo=");
+
+        String json = mvc.perform(post("/rezeptapp")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(r)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageBase64").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        long id = om.readTree(json).get("id").asLong();
+
+        mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageUrl", is("/rezeptapp/" + id + "/image")));
+
+        String etag = mvc.perform(get("/rezeptapp/" + id + "/image")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Range", "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 0-3/8"))
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/rezeptapp/" + id + "/image")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void uploadRecipeImage_multipart_asOwner_storesImage_otherUser403() throws Exception {
+        String owner = registerAndLogin(randomUser(), "pw123");
+        String other = registerAndLogin(randomUser(), "pw123");
+        long id = createRecipeAs(owner, "Upload_" + UUID.randomUUID().toString().substring(0, 6));
+
+        byte[] png = new byte[20_000];
+        for (int i = 0; i < png.length; i++) png[i] = (byte) i;
+        MockMultipartFile file = new MockMultipartFile("file", "foto.png", "image/png", png);
+
+        mvc.perform(multipart(HttpMethod.PUT, "/rezeptapp/" + id + "/image").file(file)
+                        .header("Authorization", "Bearer " + owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageUrl", is("/rezeptapp/" + id + "/image")));
+
+        mvc.perform(get("/rezeptapp/" + id + "/image")
+                        .header("Authorization", "Bearer " + owner))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("image/png")))
+                .andExpect(content().bytes(png));
+
+        mvc.perform(multipart(HttpMethod.PUT, "/rezeptapp/" + id + "/image").file(file)
+                        .header("Authorization", "Bearer " + other))
+                .andExpect(status().isForbidden());
+
+        MockMultipartFile text = new MockMultipartFile("file", "notiz.txt", "text/plain", "kein Bild".getBytes());
+        mvc.perform(multipart(HttpMethod.PUT, "/rezeptapp/" + id + "/image").file(text)
+                        .header("Authorization", "Bearer " + owner))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void uploadRecipeImage_thumbnailsRenderedInBackground() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+        long id = createRecipeAs(token, "Thumb_" + UUID.randomUUID().toString().substring(0, 6));
+
+        BufferedImage photo = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < photo.getWidth(); x++) {
+            for (int y = 0; y < photo.getHeight(); y++) photo.setRGB(x, y, (x * 31) ^ (y * 17));
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(photo, "png", png);
+
+        mvc.perform(multipart(HttpMethod.PUT, "/rezeptapp/" + id + "/image")
+                        .file(new MockMultipartFile("file", "foto.png", "image/png", png.toByteArray()))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // Thumbnails entstehen asynchron; bis dahin kommt das Original (PNG)
+        MvcResult thumb = null;
+        for (int i = 0; i < 100; i++) {
+            MvcResult r = mvc.perform(get("/rezeptapp/" + id + "/image")
+                            .param("size", "thumb")
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            if ("image/jpeg".equals(r.getResponse().getContentType())) {
+                thumb = r;
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertNotNull(thumb, "Thumbnail wurde nicht erzeugt");
+
+        byte[] bytes = thumb.getResponse().getContentAsByteArray();
+        assertTrue(bytes.length < png.size());
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertEquals(160, scaled.getWidth());
+        assertEquals(107, scaled.getHeight());
+
+        mvc.perform(get("/rezeptapp/" + id + "/image")
+                        .param("size", "riesig")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllRecipes_fuzzyMode_toleratesTypos() throws Exception {
+        // Seeder: "Spaghetti Carbonara"
+        mvc.perform(get("/rezeptapp")
+                        .param("search", "spagetti carbonra")
+                        .param("mode", "fuzzy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title", is("Spaghetti Carbonara")));
+    }
+
+    @Test
+    void getAllRecipes_unknownMode_returns400() throws Exception {
+        mvc.perform(get("/rezeptapp")
+                        .param("search", "pasta")
+                        .param("mode", "magic"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void suggest_completesTitlesCategoriesAndIngredients_withinVisibility() throws Exception {
+        // Seeder: Titel "Spaghetti Carbonara", Kategorie "Italienisch", Zutat "Parmesan"
+        mvc.perform(get("/rezeptapp/suggest").param("q", "carbo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].text", hasItem("Spaghetti Carbonara")));
+
+        mvc.perform(get("/rezeptapp/suggest").param("q", "ital"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.type == 'CATEGORY')].text", hasItem("Italienisch")));
+
+        mvc.perform(get("/rezeptapp/suggest").param("q", "parm"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.type == 'INGREDIENT')].text", hasItem("Parmesan")));
+
+        // eigenes Rezept: nur für den Besitzer sichtbar
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+        String title = "Zzqx Geheimrezept " + UUID.randomUUID().toString().substring(0, 6);
+        createRecipeAs(token, title);
+
+        mvc.perform(get("/rezeptapp/suggest").param("q", "zzqx")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].text", hasItem(title)));
+
+        mvc.perform(get("/rezeptapp/suggest").param("q", "zzqx"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].text", not(hasItem(title))));
+    }
+
+    @Test
+    void cook_ranksByIngredientCoverage_andListsMissing() throws Exception {
+        // Carbonara: Spaghetti, Guanciale/Speck, Ei, Parmesan, Pfeffer => 4 von 5 vorhanden
+        mvc.perform(get("/rezeptapp/cook").param("have", "spaghetti,Speck,Ei,parmesan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].recipe.title", is("Spaghetti Carbonara")))
+                .andExpect(jsonPath("$[0].available", is(4)))
+                .andExpect(jsonPath("$[0].total", is(5)))
+                .andExpect(jsonPath("$[0].missing", contains("Pfeffer")));
+
+        mvc.perform(get("/rezeptapp/cook")
+                        .param("have", "Spaghetti", "Speck", "Ei", "Parmesan", "Pfeffer")
+                        .param("maxMissing", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].recipe.title", hasItem("Spaghetti Carbonara")))
+                .andExpect(jsonPath("$[*].missing", everyItem(empty())));
+    }
+
+    @Test
+    void cook_withoutIngredients_returns400() throws Exception {
+        mvc.perform(get("/rezeptapp/cook"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllRecipes_nutritionAndPrepFilters_restrictResults() throws Exception {
+        // validRecipe: 500 kcal, 15 Minuten
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+        String title = "Filtered_" + UUID.randomUUID().toString().substring(0, 6);
+        createRecipeAs(token, title);
+
+        mvc.perform(get("/rezeptapp")
+                        .param("maxKcal", "600")
+                        .param("maxPrepMinutes", "20")
+                        .param("sort", "KCAL_ASC")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", hasItem(title)))
+                .andExpect(jsonPath("$[*].nutrition.caloriesKcal", everyItem(lessThanOrEqualTo(600))))
+                .andExpect(jsonPath("$[*].prepMinutes", everyItem(lessThanOrEqualTo(20))));
+
+        mvc.perform(get("/rezeptapp")
+                        .param("maxKcal", "400")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", not(hasItem(title))));
+    }
+
+    @Test
+    void getAllRecipes_invalidRange_returns400() throws Exception {
+        mvc.perform(get("/rezeptapp").param("minKcal", "900").param("maxKcal", "100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllRecipes_withFacets_returnsCountsForCurrentQuery() throws Exception {
+        // validRecipe: Kategorie "Test", 500 kcal, 15 Minuten
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+        createRecipeAs(token, "Facet_A_" + UUID.randomUUID().toString().substring(0, 6));
+        createRecipeAs(token, "Facet_B_" + UUID.randomUUID().toString().substring(0, 6));
+
+        mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .param("facets", "true")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.next", nullValue()))
+                .andExpect(jsonPath("$.facets.categories.Test", is(2)))
+                .andExpect(jsonPath("$.facets.prepMinutes['0-15']", is(2)))
+                .andExpect(jsonPath("$.facets.prepMinutes['16-30']", is(0)))
+                .andExpect(jsonPath("$.facets.kcal['400-599']", is(2)));
+
+        mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .param("facets", "true")
+                        .param("maxKcal", "400")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andExpect(jsonPath("$.facets.kcal['400-599']", is(0)));
+    }
+
+    @Test
+    void listAndFavorites_statementCount_doesNotGrowWithRecipes() throws Exception {
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+        for (int i = 0; i < 2; i++) createFavoriteAs(token, "Count_" + i + "_" + UUID.randomUUID().toString().substring(0, 6));
+
+        long listFew = statementsFor(get("/rezeptapp").param("category", "__mine__").header("Authorization", "Bearer " + token));
+        long favoritesFew = statementsFor(get("/rezeptapp/favorites").header("Authorization", "Bearer " + token));
+
+        for (int i = 2; i < 6; i++) createFavoriteAs(token, "Count_" + i + "_" + UUID.randomUUID().toString().substring(0, 6));
+
+        long listMany = statementsFor(get("/rezeptapp").param("category", "__mine__").header("Authorization", "Bearer " + token));
+        long favoritesMany = statementsFor(get("/rezeptapp/favorites").header("Authorization", "Bearer " + token));
+
+        // Token-Lookup (inkl. Favoriten) + eine Listen-Query, unabhängig von der Anzahl Rezepte/Zutaten
+        assertEquals(listFew, listMany);
+        assertEquals(favoritesFew, favoritesMany);
+        assertTrue(listMany <= 2, "Statements für Liste: " + listMany);
+        assertTrue(favoritesMany <= 2, "Statements für Favoriten: " + favoritesMany);
+    }
+
+    @Test
+    void publicCatalog_asGuest_servedWithoutStatements() throws Exception {
+        PublicCatalog.Snapshot catalog = publicCatalog.current();
+        assertNotNull(catalog, "Katalog-Snapshot muss nach dem Start bereit sein");
+        long publicId = catalog.recipes().get(0).id();
+
+        assertEquals(0, statementsFor(get("/rezeptapp")));
+        assertEquals(0, statementsFor(get("/rezeptapp/categories")));
+        assertEquals(0, statementsFor(get("/rezeptapp/" + publicId)));
+
+        // eigene Rezepte ändern den Katalog nicht
+        String token = registerAndLogin(randomUser(), "pw123");
+        createRecipeAs(token, "NotInCatalog_" + UUID.randomUUID().toString().substring(0, 6));
+        assertEquals(catalog.version(), publicCatalog.current().version());
+    }
+
     @Test
     void createRecipe_withoutAuth_returns401() throws Exception {
         Recipe r = validRecipe("NoAuthRecipe");
@@ -151,6 +526,369 @@ class RecipeControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void getRecipe_owned_asOwner_returnsDetailWithIngredients() throws Exception {
+        String u = randomUser();
+        String token = registerAndLogin(u, "pw123");
+        long ownedId = createRecipeAs(token, "OwnedDetail_" + UUID.randomUUID().toString().substring(0, 6));
+
+        // open-in-view ist aus => Zutaten müssen schon im Service gemappt sein
+        mvc.perform(get("/rezeptapp/" + ownedId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value((int) ownedId))
+                .andExpect(jsonPath("$.ingredients[0].name").value("Zutat A"))
+                .andExpect(jsonPath("$.ingredients[0].unit").value("Stk"))
+                .andExpect(jsonPath("$.nutrition.caloriesKcal").value(500))
+                .andExpect(jsonPath("$.createdByUsername").value(u));
+    }
+
+    @Test
+    void getRecipe_withMatchingEtag_returns304_untilRecipeChanges() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+        long id = createRecipeAs(token, "Etag_" + UUID.randomUUID().toString().substring(0, 6));
+
+        String etag = mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        Recipe patch = new Recipe();
+        patch.setTitle("Etag geändert");
+        mvc.perform(put("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(patch)))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Etag geändert"));
+
+        // fremde Rezepte: 403 statt 304, auch mit passendem ETag
+        mvc.perform(get("/rezeptapp/" + id).header("If-None-Match", etag))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void updateRecipe_onlyIngredientAmount_changesEtag() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+        long id = createRecipeAs(token, "Menge_" + UUID.randomUUID().toString().substring(0, 6));
+
+        String etag = mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // gleiche Zutat, nur andere Menge => nur die Zutaten-Zeile wird geändert
+        Ingredient more = new Ingredient();
+        more.setName("Zutat A");
+        more.setAmount("3");
+        more.setUnit("Stk");
+        Recipe patch = new Recipe();
+        patch.setIngredients(List.of(more));
+
+        String newEtag = mvc.perform(put("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(patch)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+
+        mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", newEtag))
+                .andExpect(jsonPath("$.ingredients[0].amount").value("3"));
+
+        // zweiter Client mit altem Stand => 412 statt stillem Überschreiben
+        mvc.perform(put("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(patch)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void getRecipesBatch_keepsRequestOrder_reportsForbidden_inOneQuery() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+        long first = createRecipeAs(token, "Batch_1_" + UUID.randomUUID().toString().substring(0, 6));
+        long second = createRecipeAs(token, "Batch_2_" + UUID.randomUUID().toString().substring(0, 6));
+        long foreign = createRecipeAs(registerAndLogin(randomUser(), "pw123"), "Batch_Fremd");
+        long publicId = publicCatalog.current().recipes().get(0).id();
+
+        int missing = 999_999_999;
+        String ids = second + "," + publicId + "," + foreign + "," + first + "," + missing + "," + second;
+        mvc.perform(get("/rezeptapp/batch")
+                        .param("ids", ids)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id").value(contains((int) second, (int) publicId, (int) first)))
+                .andExpect(jsonPath("$.items[0].ingredients[0].name").value("Zutat A"))
+                .andExpect(jsonPath("$.forbidden").value(contains((int) foreign, missing)));
+
+        // Token-Lookup + eine IN-Abfrage, egal wie viele ids
+        long statements = statementsFor(get("/rezeptapp/batch")
+                .param("ids", ids)
+                .header("Authorization", "Bearer " + token));
+        assertTrue(statements <= 3, "batch: " + statements + " Statements");
+
+        // Gäste: nur public Rezepte, direkt aus dem Katalog
+        assertEquals(0, statementsFor(get("/rezeptapp/batch").param("ids", publicId + "," + first)));
+        mvc.perform(get("/rezeptapp/batch").param("ids", publicId + "," + first))
+                .andExpect(jsonPath("$.items[*].id").value(contains((int) publicId)))
+                .andExpect(jsonPath("$.forbidden").value(contains((int) first)));
+
+        mvc.perform(get("/rezeptapp/batch"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void patchRecipe_mergePatch_withIfMatch_rejectsStaleEtagWith412() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+        long id = createRecipeAs(token, "Patch_" + UUID.randomUUID().toString().substring(0, 6));
+
+        String etag = mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // nur geänderte Felder; null entfernt category, nutrition wird feldweise gemischt
+        String updatedEtag = mvc.perform(patch("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", etag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"title\":\"Patch neu\",\"category\":null,\"nutrition\":{\"caloriesKcal\":321}}"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.title").value("Patch neu"))
+                .andExpect(jsonPath("$.category").doesNotExist())
+                .andExpect(jsonPath("$.description", startsWith("Beschreibung für")))
+                .andExpect(jsonPath("$.nutrition.caloriesKcal").value(321))
+                .andExpect(jsonPath("$.nutrition.proteinG").value(20.0))
+                .andExpect(jsonPath("$.ingredients[0].name").value("Zutat A"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(updatedEtag);
+        assertTrue(!updatedEtag.equals(etag));
+
+        // zweites Gerät mit altem Stand => 412 statt stillem Überschreiben
+        mvc.perform(patch("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", etag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"title\":\"Anderes Gerät\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+
+        mvc.perform(put("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Anderes Gerät\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        // aktueller ETag passt, GET liefert denselben ETag wie die PATCH-Antwort
+        mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", updatedEtag))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(patch("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", updatedEtag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"titel\":\"Tippfehler\"}"))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(patch("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"title\":null}"))
+                .andExpect(status().isBadRequest());
+
+        String other = registerAndLogin(randomUser(), "pw123");
+        mvc.perform(patch("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + other)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"title\":\"Fremd\"}"))
+                .andExpect(status().isForbidden());
+
+        mvc.perform(get("/rezeptapp/" + id)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.title").value("Patch neu"));
+    }
+
+    @Test
+    void getAllRecipes_ndjson_streamsSameRowsAsList() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+        for (int i = 0; i < 3; i++) createRecipeAs(token, "Stream_" + i + "_" + UUID.randomUUID().toString().substring(0, 6));
+
+        JsonNode list = om.readTree(mvc.perform(get("/rezeptapp")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        MvcResult started = mvc.perform(get("/rezeptapp")
+                        .header("Authorization", "Bearer " + token)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String ndjson = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("application/x-ndjson")))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(list.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(list.get(i).get("id").asLong(), om.readTree(lines[i]).get("id").asLong());
+        }
+
+        // Gast-Suche: JSON-Liste und Stream aus derselben Quelle
+        JsonNode guestList = om.readTree(mvc.perform(get("/rezeptapp").param("search", "a"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        MvcResult guestStarted = mvc.perform(get("/rezeptapp")
+                        .param("search", "a")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] guestLines = mvc.perform(asyncDispatch(guestStarted))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(guestList.size(), guestLines.length);
+        for (int i = 0; i < guestLines.length; i++) {
+            assertEquals(guestList.get(i).get("id").asLong(), om.readTree(guestLines[i]).get("id").asLong());
+        }
+
+        MvcResult mine = mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .header("Authorization", "Bearer " + token)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(3, mvc.perform(asyncDispatch(mine)).andReturn().getResponse().getContentAsString().split("\n").length);
+
+        mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void importRecipes_ndjson_importsValidLines_andReportsLineErrors() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+
+        Recipe invalid = validRecipe("Ohne Zutaten");
+        invalid.setIngredients(List.of());
+
+        // kaputtes Inline-Bild: nur diese Zeile schlägt fehl, nicht der ganze Block
+        Recipe badImage = validRecipe("Kaputtes Bild");
+        badImage.setImageBase64("data:image/png;base64,%%%");
+
+        String ndjson = om.writeValueAsString(validRecipe("Import Eins")) + "\n"
+                + om.writeValueAsString(invalid) + "\n"
+                + "\n"
+                + "{ kaputt\n"
+                + om.writeValueAsString(validRecipe("Import Zwei")) + "\n"
+                + om.writeValueAsString(badImage) + "\n";
+
+        mvc.perform(post("/rezeptapp/import")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.failed", is(3)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)))
+                .andExpect(jsonPath("$.errors[0].message", containsString("Zutat")))
+                .andExpect(jsonPath("$.errors[1].line", is(4)))
+                .andExpect(jsonPath("$.errors[2].line", is(6)))
+                .andExpect(jsonPath("$.errors[2].message", containsString("Bild")));
+
+        mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].title", containsInAnyOrder("Import Eins", "Import Zwei")));
+
+        mvc.perform(post("/rezeptapp/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void importRecipes_csv_withQuotedMultilineFields() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+
+        String csv = "title,description,instructions,category,caloriesKcal,proteinG,ingredients\n"
+                + "Linsensuppe,\"Herzhaft, wärmend\",\"1) Linsen kochen\n2) Würzen\",Suppe,420,\"21,5\",Linsen|200|g;Zwiebel|1|Stk\n"
+                + "X,zu kurz,Schritt,Suppe,abc,1,Salz\n"
+                + "\"Der \"\"beste\"\" Salat\",Frisch und knackig,Waschen,Salat,150,3,Salat|1|Kopf\n";
+
+        mvc.perform(post("/rezeptapp/import")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(4)))
+                .andExpect(jsonPath("$.errors[0].message", containsString("caloriesKcal")));
+
+        String json = mvc.perform(get("/rezeptapp")
+                        .param("category", "__mine__")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].title", containsInAnyOrder("Linsensuppe", "Der \"beste\" Salat")))
+                .andReturn().getResponse().getContentAsString();
+
+        long soupId = 0;
+        for (JsonNode node : om.readTree(json)) {
+            if (node.get("title").asText().equals("Linsensuppe")) soupId = node.get("id").asLong();
+        }
+
+        mvc.perform(get("/rezeptapp/" + soupId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.instructions", is("1) Linsen kochen\n2) Würzen")))
+                .andExpect(jsonPath("$.nutrition.proteinG", is(21.5)))
+                .andExpect(jsonPath("$.ingredients", hasSize(2)));
+    }
+
+    @Test
+    void getAllRecipes_asGuest_withMatchingEtag_returns304WithoutStatements() throws Exception {
+        String etag = mvc.perform(get("/rezeptapp").param("category", "Test"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        StatementCounter.reset();
+        mvc.perform(get("/rezeptapp").param("category", "Test").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        assertEquals(0, StatementCounter.count());
+
+        // andere Parameter => anderer ETag
+        mvc.perform(get("/rezeptapp").param("category", "Pasta").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void updateRecipe_asWrongUser_returns403() throws Exception {
         String u1 = randomUser();
@@ -185,6 +923,53 @@ class RecipeControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void bulkDelete_ownRecipes_setBased_withFavorites_allOrNothing() throws Exception {
+        String token = registerAndLogin(randomUser(), "pw123");
+        long a = createRecipeAs(token, "Bulk_A_" + UUID.randomUUID().toString().substring(0, 6));
+        long b = createRecipeAs(token, "Bulk_B_" + UUID.randomUUID().toString().substring(0, 6));
+        long c = createRecipeAs(token, "Bulk_C_" + UUID.randomUUID().toString().substring(0, 6));
+
+        // Favoriten-Link zeigt auf a => muss mit gelöscht werden (Fremdschlüssel)
+        mvc.perform(post("/rezeptapp/" + a + "/favorite")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        String otherToken = registerAndLogin(randomUser(), "pw123");
+        long foreign = createRecipeAs(otherToken, "Bulk_Fremd_" + UUID.randomUUID().toString().substring(0, 6));
+
+        // ein fremdes bzw. unbekanntes Rezept => nichts wird gelöscht
+        mvc.perform(post("/rezeptapp/bulk-delete")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(List.of(a, foreign))))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/rezeptapp/bulk-delete")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(om.writeValueAsString(List.of(a, Long.MAX_VALUE))))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/rezeptapp/" + a).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // Token-Lookup + Besitzprüfung + je ein DELETE für Favoriten, Zutaten, Rezepte
+        long statements = statementsFor(post("/rezeptapp/bulk-delete")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(om.writeValueAsString(List.of(a, b, c, a))));
+        assertTrue(statements <= 6, "bulk delete: " + statements + " Statements");
+
+        for (long id : List.of(a, b, c)) {
+            mvc.perform(get("/rezeptapp/" + id).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        }
+        mvc.perform(get("/rezeptapp/favorites/ids").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mvc.perform(get("/rezeptapp/" + foreign).header("Authorization", "Bearer " + otherToken))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void favorites_add_and_remove_ok() throws Exception {
         String u = randomUser();
@@ -1,6 +1,7 @@
 package com.example.rezeptapp.controller;
 
 import com.example.rezeptapp.config.GlobalExceptionHandler;
+import com.example.rezeptapp.service.CacheStatsService;
 import com.example.rezeptapp.service.StatsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -13,6 +14,7 @@ import java.util.List;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,7 +34,7 @@ class StatsControllerTest {
 
         when(service.buildStats(any())).thenReturn(resp);
 
-        StatsController controller = new StatsController(service);
+        StatsController controller = new StatsController(service, mock(CacheStatsService.class));
 
         MockMvc mvc = MockMvcBuilders
                 .standaloneSetup(controller)
@@ -54,7 +56,7 @@ class StatsControllerTest {
         StatsService service = mock(StatsService.class);
         when(service.buildStats(any())).thenThrow(new IllegalArgumentException("recipeIds darf nicht leer sein"));
 
-        StatsController controller = new StatsController(service);
+        StatsController controller = new StatsController(service, mock(CacheStatsService.class));
 
         MockMvc mvc = MockMvcBuilders
                 .standaloneSetup(controller)
@@ -75,7 +77,7 @@ class StatsControllerTest {
         StatsService service = mock(StatsService.class);
         when(service.buildStats(any())).thenThrow(new IllegalArgumentException("Recipe nicht gefunden: [9999]"));
 
-        StatsController controller = new StatsController(service);
+        StatsController controller = new StatsController(service, mock(CacheStatsService.class));
 
         MockMvc mvc = MockMvcBuilders
                 .standaloneSetup(controller)
@@ -90,4 +92,24 @@ class StatsControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message", containsString("Recipe nicht gefunden")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void cacheStats_returnsRegions() throws Exception {
+        CacheStatsService cacheStats = mock(CacheStatsService.class);
+        when(cacheStats.regions()).thenReturn(List.of(
+                new CacheStatsService.RegionStats("recipes", 3, 1, 1, 1, 0.75)
+        ));
+
+        StatsController controller = new StatsController(mock(StatsService.class), cacheStats);
+
+        MockMvc mvc = MockMvcBuilders
+                .standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mvc.perform(get("/rezeptapp/stats/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].region").value("recipes"))
+                .andExpect(jsonPath("$[0].hitRatio").value(0.75));
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.rezeptapp.service;
 
+import com.example.rezeptapp.config.StatementCounter;
+import com.example.rezeptapp.model.Ingredient;
+import com.example.rezeptapp.model.Nutrition;
+import com.example.rezeptapp.model.Recipe;
 import com.example.rezeptapp.model.UserAccount;
 import com.example.rezeptapp.repository.UserAccountRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +12,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -16,6 +23,7 @@ class AuthServiceTest {
 
     @Autowired AuthService authService;
     @Autowired UserAccountRepository userRepo;
+    @Autowired RecipeService recipeService;
 
     @BeforeEach
     void cleanDb() {
@@ -105,6 +113,70 @@ class AuthServiceTest {
         assertNotNull(u.getFavorites()); // should be loaded via EntityGraph
     }
 
+    @Test
+    void requirePrincipal_isCached_untilReloginOrLogout() {
+        authService.register("kaka", "secret");
+        String token = authService.loginAndCreateToken("kaka", "secret");
+
+        AuthService.Principal principal = authService.requirePrincipal(token);
+        assertEquals("kaka", principal.username());
+        assertTrue(principal.favoriteIds().isEmpty());
+
+        // zweiter Aufruf: nur Hash-Lookup, keine DB
+        StatementCounter.reset();
+        assertSame(principal, authService.requirePrincipal(token));
+        assertEquals(0, StatementCounter.count());
+
+        // Re-Login ersetzt das Token => altes ist sofort ungültig, nicht erst nach Ablauf
+        String next = authService.loginAndCreateToken("kaka", "secret");
+        assertThrows(IllegalArgumentException.class, () -> authService.requirePrincipal(token));
+        assertEquals(principal.id(), authService.requirePrincipal(next).id());
+
+        authService.logout(next);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> authService.requirePrincipal(next));
+        assertEquals("unauthorized", ex.getMessage());
+    }
+
+    @Test
+    void requirePrincipal_deletedFavorite_evictsOnlyAffectedUser() {
+        authService.register("kaka", "secret");
+        authService.register("bobo", "secret");
+        String kakaToken = authService.loginAndCreateToken("kaka", "secret");
+        String boboToken = authService.loginAndCreateToken("bobo", "secret");
+
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Fav");
+        recipe.setDescription("desc ok");
+        recipe.setInstructions("step 1");
+        recipe.setCategory("Test");
+        Nutrition n = new Nutrition();
+        n.setCaloriesKcal(100);
+        n.setProteinG(10.0);
+        n.setFatG(5.0);
+        n.setCarbsG(20.0);
+        recipe.setNutrition(n);
+        Ingredient i = new Ingredient();
+        i.setName("Zutat");
+        i.setAmount("1");
+        i.setUnit("Stk");
+        recipe.setIngredients(List.of(i));
+        Long recipeId = recipeService.createForUser(recipe, "kaka").getId();
+        recipeService.addFavorite(authService.requireUser(kakaToken), recipeId);
+
+        AuthService.Principal kaka = authService.requirePrincipal(kakaToken);
+        AuthService.Principal bobo = authService.requirePrincipal(boboToken);
+        assertEquals(Set.of(recipeId), kaka.favoriteIds());
+
+        recipeService.deleteForUser(recipeId, "kaka");
+
+        // nur der User mit dem Favoriten wird neu geladen, der andere bleibt im Cache
+        StatementCounter.reset();
+        assertSame(bobo, authService.requirePrincipal(boboToken));
+        assertEquals(0, StatementCounter.count());
+        assertTrue(authService.requirePrincipal(kakaToken).favoriteIds().isEmpty());
+    }
+
     @Test
     void requireUser_invalidToken_throwsUnauthorized() {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
@@ -1,17 +1,30 @@
 package com.example.rezeptapp.service;
 
+import com.example.rezeptapp.config.StatementCounter;
+import com.example.rezeptapp.dto.IngredientDto;
+import com.example.rezeptapp.dto.RecipeDetail;
+import com.example.rezeptapp.dto.RecipeSummary;
 import com.example.rezeptapp.model.Ingredient;
 import com.example.rezeptapp.model.Nutrition;
 import com.example.rezeptapp.model.Recipe;
 import com.example.rezeptapp.model.UserAccount;
+import com.example.rezeptapp.repository.RecipeFilter;
+import com.example.rezeptapp.repository.RecipeQueryRepository;
 import com.example.rezeptapp.repository.RecipeRepository;
+import com.example.rezeptapp.repository.RecipeScope;
+import com.example.rezeptapp.repository.RecipeSort;
 import com.example.rezeptapp.repository.UserAccountRepository;
+import com.example.rezeptapp.search.RecipeDocument;
+import com.example.rezeptapp.search.TitleTrigramIndex;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,7 +35,11 @@ class RecipeServiceTest {
 
     @Autowired RecipeService recipeService;
     @Autowired RecipeRepository recipeRepo;
+    @Autowired RecipeQueryRepository queries;
     @Autowired UserAccountRepository userRepo;
+    @Autowired CacheStatsService cacheStats;
+    @Autowired ImageMigration imageMigration;
+    @Autowired ImageService imageService;
 
     private Recipe validRecipe(String title) {
         Recipe r = new Recipe();
@@ -80,4 +97,374 @@ class RecipeServiceTest {
         recipeService.removeFavorite(u, created.getId());
         assertFalse(recipeService.getFavoriteIds(u).contains(created.getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional
+    void findMinePage_pagesWithCursor_untilEnd() {
+        // Arrange
+        Recipe r1 = recipeService.createForUser(validRecipe("Page1"), "pager");
+        Recipe r2 = recipeService.createForUser(validRecipe("Page2"), "pager");
+        Recipe r3 = recipeService.createForUser(validRecipe("Page3"), "pager");
+
+        // Act
+        RecipeService.RecipePage first = recipeService.findMinePage("pager", null, null, 2);
+        RecipeService.RecipePage second = recipeService.findMinePage("pager", null, first.next(), 2);
+
+        // Assert
+        assertEquals(List.of(r1.getId(), r2.getId()), first.items().stream().map(RecipeSummary::id).toList());
+        assertNotNull(first.next());
+        assertEquals(List.of(r3.getId()), second.items().stream().map(RecipeSummary::id).toList());
+        assertNull(second.next());
+    }
+
+    @Test
+    void findAllPage_invalidCursor_throws() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> recipeService.findAllPage(null, null, null, "kein-cursor", 10));
+        assertTrue(ex.getMessage().contains("cursor"));
+    }
+
+    @Test
+    void withFacets_guestSearch_countsFromSameSourceAsItems() {
+        // Gast und eingeloggt (ohne eigene Rezepte) sehen dieselben Treffer => gleiche Zahlen, passend zur Liste
+        RecipeFilter filter = RecipeFilter.of("a", null);
+
+        RecipeService.FacetedPage guest = recipeService.withFacets(null, filter,
+                recipeService.findAllFiltered(null, filter, null, null));
+        RecipeService.FacetedPage sql = recipeService.withFacets("nobody-facets", filter,
+                recipeService.findAllFiltered("nobody-facets", filter, null, null));
+
+        assertEquals(sql.facets(), guest.facets());
+        long counted = guest.facets().categories().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(guest.items().size(), counted);
+    }
+
+    @Test
+    @Transactional
+    void findMineFiltered_cursorFromOtherSort_throws() {
+        recipeService.createForUser(validRecipe("Mode1"), "moder");
+        recipeService.createForUser(validRecipe("Mode2"), "moder");
+
+        RecipeFilter byKcal = new RecipeFilter(null, null, null, null, null, null, null, null, null, RecipeSort.KCAL_ASC);
+        String offsetCursor = recipeService.findMineFiltered("moder", byKcal, null, 1).next();
+        String keysetCursor = recipeService.findMinePage("moder", null, null, 1).next();
+
+        // Offset-Cursor mit sort=ID (und umgekehrt) => 400 statt still von vorn
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> recipeService.findMinePage("moder", null, offsetCursor, 1));
+        assertTrue(ex.getMessage().contains("cursor"));
+        assertThrows(IllegalArgumentException.class,
+                () -> recipeService.findMineFiltered("moder", byKcal, keysetCursor, 1));
+    }
+
+    @Test
+    @Transactional
+    void findMine_search_fallsBackToLikeWithoutFullText() {
+        // H2 hat keine tsvector-Volltextsuche => Teilstring-Suche wie bisher
+        Recipe created = recipeService.createForUser(validRecipe("Kartoffelsuppe"), "searcher");
+        recipeService.createForUser(validRecipe("Linsensuppe"), "searcher");
+
+        List<RecipeSummary> hits = recipeService.findMine("searcher", "toffel");
+
+        assertEquals(List.of(created.getId()), hits.stream().map(RecipeSummary::id).toList());
+    }
+
+    @Test
+    void trigramSearch_budgetExhausted_ranksTrigramsReadSoFar() {
+        // Budget 0 => nach dem ersten Trigramm Schluss; Schwelle relativ dazu, sonst bliebe kein Treffer übrig
+        TitleTrigramIndex index = new TitleTrigramIndex(recipeRepo, 0);
+        index.build();
+
+        List<RecipeSummary> hits = index.search(RecipeScope.PUBLIC, "", null, "spagetti", 1000);
+
+        assertTrue(hits.stream().anyMatch(h -> h.title().startsWith("Spaghetti")));
+    }
+
+    @Test
+    void trigramIndex_eventsBeforeBuildAndSmallerIds_areIndexedWithoutRebuild() {
+        TitleTrigramIndex index = new TitleTrigramIndex(recipeRepo, 20);
+
+        // vor/während des Aufbaus committet => gesammelt und danach nachgespielt statt verloren
+        index.onRecipeChanged(RecipeChangedEvent.saved(publicDocument(-2L, "Quarkkeulchen")));
+        assertFalse(index.isReady());
+        index.build();
+
+        // kleinere id als alle vorhandenen (pooled Sequenzen, parallele Commits) => einsortiert, Index bleibt bereit
+        index.onRecipeChanged(RecipeChangedEvent.saved(publicDocument(-1L, "Quarkauflauf")));
+        assertTrue(index.isReady());
+
+        assertEquals(-2L, index.search(RecipeScope.PUBLIC, "", null, "Quarkkeulchen", 1).getFirst().id());
+        assertEquals(-1L, index.search(RecipeScope.PUBLIC, "", null, "Quarkauflauf", 1).getFirst().id());
+
+        index.onRecipeChanged(RecipeChangedEvent.deleted(-1L));
+        assertTrue(index.search(RecipeScope.PUBLIC, "", null, "Quarkauflauf", 10).stream()
+                .noneMatch(h -> h.id() == -1L));
+    }
+
+    private static RecipeDocument publicDocument(long id, String title) {
+        RecipeSummary summary = new RecipeSummary(id, title, "Test", null, null, null, null, null, null);
+        return new RecipeDocument(id, null, title, "desc ok", "Test", List.of(), summary);
+    }
+
+    @Test
+    @Transactional
+    void findAfter_keysetPagesInSortOrder_matchOneShotQuery() {
+        // Gleichstände und NULL (steht am Ende) => Fortsetzung muss über (Sortwert, id) laufen, nicht nur über den Wert
+        int[] kcal = {500, 300, 500, 800, 300};
+        for (int i = 0; i < kcal.length; i++) {
+            Recipe r = validRecipe("Keyset" + i);
+            r.getNutrition().setCaloriesKcal(kcal[i]);
+            recipeService.createForUser(r, "keyset");
+        }
+        for (String title : List.of("Keyset ohne kcal", "Keyset ohne kcal 2")) {
+            Recipe r = validRecipe(title);
+            r.getNutrition().setCaloriesKcal(null);
+            recipeService.createForUser(r, "keyset");
+        }
+
+        for (RecipeSort sort : List.of(RecipeSort.KCAL_ASC, RecipeSort.KCAL_DESC, RecipeSort.ID)) {
+            RecipeFilter filter = new RecipeFilter(null, null, null, null, null, null, null, null, null, sort);
+            List<Long> expected = queries.find(RecipeScope.MINE, "keyset", filter, sort, 0L, 0, null).stream()
+                    .map(RecipeSummary::id).toList();
+
+            List<Long> paged = new ArrayList<>();
+            RecipeQueryRepository.Keyset after = null;
+            while (true) {
+                List<RecipeQueryRepository.KeysetRow> rows = queries.findAfter(RecipeScope.MINE, "keyset", filter, sort, after, 2);
+                rows.forEach(row -> paged.add(row.summary().id()));
+                if (rows.size() < 2) break;
+                after = rows.getLast().keyset();
+            }
+
+            assertEquals(7, expected.size(), sort.name());
+            assertEquals(expected, paged, sort.name());
+        }
+    }
+
+    @Test
+    @Transactional
+    void findMineFiltered_combinesNutritionRangesWithSort() {
+        // Arrange
+        Recipe light = validRecipe("Leicht");
+        light.getNutrition().setCaloriesKcal(300);
+        light.getNutrition().setProteinG(30.0);
+        Recipe medium = validRecipe("Mittel");
+        medium.getNutrition().setCaloriesKcal(500);
+        medium.getNutrition().setProteinG(35.0);
+        Recipe heavy = validRecipe("Schwer");
+        heavy.getNutrition().setCaloriesKcal(800);
+        heavy.getNutrition().setProteinG(40.0);
+        Recipe lowProtein = validRecipe("Wenig Protein");
+        lowProtein.getNutrition().setCaloriesKcal(200);
+        lowProtein.getNutrition().setProteinG(5.0);
+
+        Long lightId = recipeService.createForUser(light, "filterer").getId();
+        Long mediumId = recipeService.createForUser(medium, "filterer").getId();
+        recipeService.createForUser(heavy, "filterer");
+        recipeService.createForUser(lowProtein, "filterer");
+
+        RecipeFilter filter = new RecipeFilter(null, null, null, 600, 25.0, null, null, null, null, RecipeSort.KCAL_DESC);
+
+        // Act
+        RecipeService.RecipePage page = recipeService.findMineFiltered("filterer", filter, null, null);
+
+        // Assert
+        assertEquals(List.of(mediumId, lightId), page.items().stream().map(RecipeSummary::id).toList());
+    }
+
+    @Test
+    void findAllFiltered_invalidRange_throws() {
+        RecipeFilter filter = new RecipeFilter(null, null, 800, 300, null, null, null, null, null, null);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> recipeService.findAllFiltered(null, filter, null, null));
+        assertTrue(ex.getMessage().contains("Kcal"));
+    }
+
+    @Test
+    void findDetailForUser_servedFromCache_andInvalidatedOnUpdateAndDelete() {
+        // ohne @Transactional: jeder Service-Aufruf committet => Second-Level-Cache wird wirklich benutzt
+        Long id = recipeService.createForUser(validRecipe("Cache Alt"), "cacher").getId();
+        recipeService.findDetailForUser(id, "cacher");
+
+        long hitsBefore = recipeCacheHits();
+        recipeService.findDetailForUser(id, "cacher");
+        assertTrue(recipeCacheHits() > hitsBefore);
+
+        Recipe patch = new Recipe();
+        patch.setTitle("Cache Neu");
+        patch.setIngredients(List.of(new Ingredient("Neue Zutat", "2", "EL")));
+        recipeService.updateForUser(id, patch, "cacher");
+
+        RecipeDetail detail = recipeService.findDetailForUser(id, "cacher");
+        assertEquals("Cache Neu", detail.title());
+        assertEquals(List.of("Neue Zutat"), detail.ingredients().stream().map(IngredientDto::name).toList());
+
+        recipeService.deleteForUser(id, "cacher");
+        assertThrows(IllegalArgumentException.class, () -> recipeService.findDetailForUser(id, "cacher"));
+    }
+
+    @Test
+    void imageMigration_movesLegacyBase64IntoBlobStore() {
+        // Altbestand: Bild noch als Base64 direkt in recipes (am Service vorbei gespeichert)
+        Recipe legacy = validRecipe("Altes Bild");
+        legacy.setCreatedByUsername("migrator");
+        legacy.setImageBase64("data:image/png;base64,iVBORw0KGgo=");
+        Long id = recipeRepo.save(legacy).getId();
+
+        assertTrue(imageMigration.migrate(id));
+        assertFalse(imageMigration.migrate(id));
+
+        Recipe migrated = recipeRepo.findById(id).orElseThrow();
+        assertNull(migrated.getImageBase64());
+        assertNotNull(migrated.getImageSha256());
+
+        ImageService.StoredImage image = imageService.load(migrated.getImageSha256()).orElseThrow();
+        assertEquals("image/png", image.contentType());
+        assertEquals(8, image.bytes().length);
+
+        // gleiche Bytes => gleicher Schlüssel
+        assertEquals(migrated.getImageSha256(), imageService.storeBase64("iVBORw0KGgo="));
+    }
+
+    @Test
+    void update_withExternalImageUrl_replacesStoredImage() {
+        Recipe recipe = validRecipe("Bild wechselt");
+        recipe.setImageBase64("data:image/png;base64,iVBORw0KGgo=");
+        Long id = recipeService.createForUser(recipe, "imager").getId();
+        assertNotNull(recipeService.findImageForUser(id, "imager").sha256());
+
+        Recipe patch = new Recipe();
+        patch.setImageUrl("https://example.org/neu.jpg");
+        recipeService.updateForUser(id, patch, "imager");
+
+        // sonst gewinnt beim Ausliefern weiter der alte sha
+        RecipeService.ImageRef ref = recipeService.findImageForUser(id, "imager");
+        assertNull(ref.sha256());
+        assertEquals("https://example.org/neu.jpg", ref.externalUrl());
+
+        // gleiches Bild nochmal speichern => kein zweiter INSERT, gleicher Schlüssel
+        String sha = imageService.storeBase64("iVBORw0KGgo=");
+        assertEquals(sha, imageService.storeBase64("iVBORw0KGgo="));
+    }
+
+    @Test
+    void updateAndPatch_withDetailImagePath_keepStoredImage() {
+        Recipe recipe = validRecipe("Bild bleibt");
+        recipe.setImageBase64("data:image/png;base64,iVBORw0KGgo=");
+        Long id = recipeService.createForUser(recipe, "imager").getId();
+        String sha = recipeService.findImageForUser(id, "imager").sha256();
+        assertNotNull(sha);
+
+        // Client schickt die Detailansicht zurück: imageUrl ist der Pfad auf GET /{id}/image
+        RecipeDetail detail = recipeService.findDetailForUser(id, "imager");
+        assertEquals(RecipeSummary.imagePath(id), detail.imageUrl());
+
+        Recipe put = new Recipe();
+        put.setTitle("Bild bleibt (PUT)");
+        put.setImageUrl(detail.imageUrl());
+        recipeService.updateForUser(id, put, "imager");
+
+        RecipeService.ImageRef afterPut = recipeService.findImageForUser(id, "imager");
+        assertEquals(sha, afterPut.sha256());
+        assertNull(afterPut.externalUrl());
+
+        ObjectNode patch = JsonNodeFactory.instance.objectNode()
+                .put("title", "Bild bleibt (PATCH)")
+                .put("imageUrl", detail.imageUrl());
+        RecipeDetail patched = recipeService.patchForUser(id, patch, null, "imager");
+
+        assertEquals("Bild bleibt (PATCH)", patched.title());
+        assertEquals(RecipeSummary.imagePath(id), patched.imageUrl());
+        assertEquals(sha, recipeService.findImageForUser(id, "imager").sha256());
+        assertNull(recipeRepo.findById(id).orElseThrow().getImageUrl());
+    }
+
+    @Test
+    void createAndUpdate_with15Ingredients_insertsAreBatched() {
+        // vorher (IDENTITY): 1 + 15 INSERTs beim Anlegen, beim Ändern zusätzlich 15 DELETEs + 15 INSERTs
+        Recipe recipe = validRecipe("Batch");
+        recipe.setIngredients(ingredients("Alt", 15));
+
+        StatementCounter.reset();
+        Long id = recipeService.createForUser(recipe, "batcher").getId();
+        long createStatements = StatementCounter.count();
+
+        Recipe patch = new Recipe();
+        patch.setIngredients(ingredients("Neu", 15));
+
+        StatementCounter.reset();
+        recipeService.updateForUser(id, patch, "batcher");
+        long updateStatements = StatementCounter.count();
+
+        // INSERT recipes + ein INSERT-Batch für alle Zutaten (+ ggf. nextval je Sequenz)
+        assertTrue(createStatements <= 4, "create: " + createStatements + " Statements");
+        // Laden + ein UPDATE-Batch (alle 15 Zeilen werden überschrieben statt gelöscht und neu eingefügt)
+        assertTrue(updateStatements <= 7, "update: " + updateStatements + " Statements");
+
+        assertEquals(15, recipeService.findDetailForUser(id, "batcher").ingredients().size());
+    }
+
+    @Test
+    void update_ingredients_onlyChangedRowsAreWritten() {
+        Recipe recipe = validRecipe("Diff");
+        recipe.setIngredients(ingredients("Zutat", 5));
+        Long id = recipeService.createForUser(recipe, "differ").getId();
+        List<Long> ids = ingredientIds(id);
+
+        // nur Titel geändert, Zutaten unverändert (ohne ids, wie aus einem Formular) => Zeilen bleiben gleich
+        Recipe patch = new Recipe();
+        patch.setTitle("Diff neu");
+        patch.setIngredients(ingredients("Zutat", 5));
+        patch.getIngredients().get(2).setAmount("3");
+        recipeService.updateForUser(id, patch, "differ");
+
+        RecipeDetail detail = recipeService.findDetailForUser(id, "differ");
+        assertEquals(ids, ingredientIds(id));
+        assertEquals("3", detail.ingredients().get(2).amount());
+
+        // erste Zutat entfernt, eine neue hinten => 1 DELETE + 1 INSERT, Rest unangetastet
+        List<Ingredient> next = ingredients("Zutat", 5).subList(1, 5);
+        next = new ArrayList<>(next);
+        next.add(new Ingredient("Salz", "1", "Prise"));
+        patch = new Recipe();
+        patch.setIngredients(next);
+        recipeService.updateForUser(id, patch, "differ");
+
+        List<Long> after = ingredientIds(id);
+        assertEquals(5, after.size());
+        assertEquals(ids.subList(1, 5), after.subList(0, 4));
+        assertTrue(after.get(4) > ids.get(4));
+        assertEquals("Salz", recipeService.findDetailForUser(id, "differ").ingredients().get(4).name());
+
+        // Zutat in der Mitte eingefügt => Reihenfolge bleibt wie gesendet
+        next = new ArrayList<>(next);
+        next.add(1, new Ingredient("Pfeffer", null, null));
+        patch = new Recipe();
+        patch.setIngredients(next);
+        recipeService.updateForUser(id, patch, "differ");
+
+        assertEquals(
+                List.of("Zutat 1", "Pfeffer", "Zutat 2", "Zutat 3", "Zutat 4", "Salz"),
+                recipeService.findDetailForUser(id, "differ").ingredients().stream().map(IngredientDto::name).toList()
+        );
+        assertEquals(after.get(0), ingredientIds(id).get(0));
+    }
+
+    private List<Long> ingredientIds(Long recipeId) {
+        return recipeService.findDetailForUser(recipeId, "differ").ingredients().stream().map(IngredientDto::id).toList();
+    }
+
+    private static List<Ingredient> ingredients(String prefix, int count) {
+        List<Ingredient> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) list.add(new Ingredient(prefix + " " + i, "1", "Stk"));
+        return list;
+    }
+
+    private long recipeCacheHits() {
+        return cacheStats.regions().stream()
+                .filter(r -> r.region().equals("recipes"))
+                .mapToLong(CacheStatsService.RegionStats::hits)
+                .sum();
+    }
+}